@@ -23,13 +23,17 @@ import com.google.common.collect.Sets;
 import com.sonar.sslr.api.AstNodeType;
 import java.util.Set;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
+import org.sonar.plugins.openapi.api.CompiledPointer;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = AtMostOneBodyParameterCheck.CHECK_KEY)
-public class AtMostOneBodyParameterCheck extends OpenApiCheck {
+public class AtMostOneBodyParameterCheck extends ScopedCheck<Void> {
   public static final String CHECK_KEY = "AtMostOneBodyParameter";
+  private static final CompiledPointer PARAMETERS = CompiledPointer.compile("/parameters");
+  private static final CompiledPointer IN = CompiledPointer.compile("/in");
 
   @Override
   public Set<AstNodeType> subscribedKinds() {
@@ -37,17 +41,17 @@ public class AtMostOneBodyParameterCheck extends OpenApiCheck {
   }
 
   @Override
-  protected void visitNode(JsonNode node) {
-    long params = node.at("/parameters").elements().stream()
-        .filter(this::isBodyParam)
+  protected void visitNode(CheckScope<Void> scope, JsonNode node) {
+    long params = PARAMETERS.from(node).elements().stream()
+        .filter(n -> isBodyParam(scope, n))
         .count();
     if (params > 1) {
-      addIssue("An operation can have at most one body parameter.", node.key());
+      scope.addIssue("An operation can have at most one body parameter.", node.key());
     }
   }
 
-  private boolean isBodyParam(JsonNode n) {
-    return n.resolve().at("/in").getTokenValue().equals("body");
+  private static boolean isBodyParam(CheckScope<Void> scope, JsonNode n) {
+    return IN.from(scope.context().symbolTable().resolve(n)).getTokenValue().equals("body");
   }
 
 }
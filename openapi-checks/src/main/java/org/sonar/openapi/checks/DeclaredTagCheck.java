@@ -23,14 +23,17 @@ import com.google.common.collect.Sets;
 import com.sonar.sslr.api.AstNodeType;
 import java.util.Set;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
+import org.sonar.plugins.openapi.api.CompiledPointer;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = DeclaredTagCheck.CHECK_KEY)
-public class DeclaredTagCheck extends OpenApiCheck {
+public class DeclaredTagCheck extends ScopedCheck<Void> {
   public static final String CHECK_KEY = "DeclaredTag";
+  private static final CompiledPointer TAGS = CompiledPointer.compile("/tags");
 
   @Override
   public Set<AstNodeType> subscribedKinds() {
@@ -38,10 +41,10 @@ public class DeclaredTagCheck extends OpenApiCheck {
   }
 
   @Override
-  protected void visitNode(JsonNode node) {
-    JsonNode tagsArray = node.at("/tags").value();
+  protected void visitNode(CheckScope<Void> scope, JsonNode node) {
+    JsonNode tagsArray = TAGS.from(node).value();
     if (tagsArray.isMissing()) {
-      addIssue("Associate a tag to this operation.", node.key());
+      scope.addIssue("Associate a tag to this operation.", node.key());
     }
   }
 }
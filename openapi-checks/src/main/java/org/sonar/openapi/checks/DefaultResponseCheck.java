@@ -19,31 +19,24 @@
  */
 package org.sonar.openapi.checks;
 
-import com.google.common.collect.Sets;
-import com.sonar.sslr.api.AstNodeType;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.Query;
+import org.sonar.plugins.openapi.api.QueryCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.impl.MissingNode;
-import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = DefaultResponseCheck.CHECK_KEY)
-public class DefaultResponseCheck extends OpenApiCheck {
+public class DefaultResponseCheck extends QueryCheck {
     protected static final String CHECK_KEY = "DefaultResponse";
     private static final String MESSAGE_NO_DEFAULT = "Define a default response for this operation.";
 
     @Override
-    public Set<AstNodeType> subscribedKinds() {
-        return Sets.newHashSet(OpenApi2Grammar.RESPONSES, OpenApi3Grammar.RESPONSES);
-    }
-
-    @Override
-    protected void visitNode(JsonNode node) {
-        JsonNode defaultResponse = node.at("/default");
-        if (defaultResponse == MissingNode.MISSING) {
-            addIssue(MESSAGE_NO_DEFAULT, node.key());
-        }
+    protected List<Query> queries() {
+        return Collections.singletonList(Query.select("/default", OpenApi2Grammar.RESPONSES, OpenApi3Grammar.RESPONSES)
+            .when(defaultResponse -> defaultResponse == MissingNode.MISSING)
+            .reportOnSubject(MESSAGE_NO_DEFAULT));
     }
 }
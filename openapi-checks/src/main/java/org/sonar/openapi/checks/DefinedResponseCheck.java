@@ -26,13 +26,14 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = DefinedResponseCheck.CHECK_KEY)
-public class DefinedResponseCheck extends OpenApiCheck {
+public class DefinedResponseCheck extends ScopedCheck<Void> {
   protected static final String CHECK_KEY = "DefinedResponse";
   private static final String MESSAGE_NO_RESPONSE = "Define the responses of your operations.";
   private static final String MESSAGE_NO_MODEL = "Define the model of your response.";
@@ -44,66 +45,70 @@ public class DefinedResponseCheck extends OpenApiCheck {
   }
 
   @Override
-  protected void visitNode(JsonNode node) {
+  protected void visitNode(CheckScope<Void> scope, JsonNode node) {
     Map<String, JsonNode> properties = node.propertyMap();
     if (properties.isEmpty()) {
-      addIssue(MESSAGE_NO_RESPONSE, node.key());
+      scope.addIssue(MESSAGE_NO_RESPONSE, node.key());
     } else if (node.getType() == OpenApi2Grammar.RESPONSES) {
-      visitV2Responses(properties);
+      visitV2Responses(scope, properties);
     } else {
-      visitV3Responses(properties);
+      visitV3Responses(scope, properties);
     }
   }
 
-  private void visitV2Responses(Map<String, JsonNode> responses) {
+  private static void visitV2Responses(CheckScope<Void> scope, Map<String, JsonNode> responses) {
     JsonNode defaultResponse = responses.remove("default");
-    boolean hasDefaultSchema = defaultResponse != null && visitResponseV2OrMediaType(defaultResponse, false);
+    boolean hasDefaultSchema = defaultResponse != null && visitResponseV2OrMediaType(scope, defaultResponse, false, defaultResponse.key());
 
     for (Map.Entry<String, JsonNode> entry : responses.entrySet()) {
-      visitResponseV2OrMediaType(entry.getValue(), hasDefaultSchema);
+      visitResponseV2OrMediaType(scope, entry.getValue(), hasDefaultSchema, entry.getValue().key());
     }
   }
 
-  private boolean visitResponseV2OrMediaType(JsonNode node, boolean hasDefaultContent) {
-    JsonNode actual = node.resolve();
+  /**
+   * @param location the node of the analyzed file to report on: a referenced response may come from another file
+   */
+  private static boolean visitResponseV2OrMediaType(CheckScope<Void> scope, JsonNode node, boolean hasDefaultContent, JsonNode location) {
+    JsonNode actual = scope.context().symbolTable().resolve(node);
     Map<String, JsonNode> properties = actual.propertyMap();
     if (!properties.containsKey("schema") && !hasDefaultContent) {
-      addIssue(MESSAGE_NO_MODEL, node.key());
+      scope.addIssue(MESSAGE_NO_MODEL, location);
       return false;
     }
     return true;
   }
 
-  private void visitV3Responses(Map<String, JsonNode> responses) {
+  private static void visitV3Responses(CheckScope<Void> scope, Map<String, JsonNode> responses) {
     JsonNode defaultResponse = responses.remove("default");
     Map<String, Boolean> defaultSchemas = new HashMap<>();
     if (defaultResponse != null) {
-      defaultSchemas.putAll(visitResponseV3(defaultResponse, Collections.emptyMap()));
+      defaultSchemas.putAll(visitResponseV3(scope, defaultResponse, Collections.emptyMap()));
     }
 
     for (Map.Entry<String, JsonNode> entry : responses.entrySet()) {
-      visitResponseV3(entry.getValue(), defaultSchemas);
+      visitResponseV3(scope, entry.getValue(), defaultSchemas);
     }
   }
 
-  private Map<String, Boolean> visitResponseV3(JsonNode node, Map<String, Boolean> defaultSchemas) {
-    Map<String, JsonNode> contents = getContents(node);
+  private static Map<String, Boolean> visitResponseV3(CheckScope<Void> scope, JsonNode node, Map<String, Boolean> defaultSchemas) {
+    Map<String, JsonNode> contents = getContents(scope, node);
     if (contents.isEmpty() && defaultSchemas.isEmpty()) {
-      addIssue(MESSAGE_NO_MODEL, node.key());
+      scope.addIssue(MESSAGE_NO_MODEL, node.key());
       return Collections.emptyMap();
     } else {
       Map<String, Boolean> result = new HashMap<>();
       for (Map.Entry<String, JsonNode> entry : contents.entrySet()) {
         Boolean isDefaultValid = defaultSchemas.get(entry.getKey());
         boolean hasDefaultSchema = isDefaultValid != null && isDefaultValid;
-        result.put(entry.getKey(), visitResponseV2OrMediaType(entry.getValue(), hasDefaultSchema));
+        JsonNode location = node.isRef() ? node.key() : entry.getValue().key();
+        result.put(entry.getKey(), visitResponseV2OrMediaType(scope, entry.getValue(), hasDefaultSchema, location));
       }
       return result;
     }
   }
 
-  private Map<String, JsonNode> getContents(JsonNode node) {
-    JsonNode actual = node.resolve();
+  private static Map<String, JsonNode> getContents(CheckScope<Void> scope, JsonNode node) {
+    JsonNode actual = scope.context().symbolTable().resolve(node);
     Map<String, JsonNode> properties = actual.propertyMap();
     JsonNode content = properties.get("content");
     if (content == null) {
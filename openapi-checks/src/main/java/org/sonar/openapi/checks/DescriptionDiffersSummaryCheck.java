@@ -19,35 +19,33 @@
  */
 package org.sonar.openapi.checks;
 
-import com.google.common.collect.Sets;
-import com.sonar.sslr.api.AstNodeType;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.Query;
+import org.sonar.plugins.openapi.api.QueryCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = DescriptionDiffersSummaryCheck.CHECK_KEY)
-public class DescriptionDiffersSummaryCheck extends OpenApiCheck {
+public class DescriptionDiffersSummaryCheck extends QueryCheck {
   public static final String CHECK_KEY = "DescriptionDiffersSummary";
 
   @Override
-  public Set<AstNodeType> subscribedKinds() {
-    return Sets.newHashSet(OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION);
+  protected List<Query> queries() {
+    return Collections.singletonList(Query.select("/description", OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION)
+      .when(DescriptionDiffersSummaryCheck::repeatsSummary)
+      .report("Description must differ from summary."));
   }
 
-  @Override
-  protected void visitNode(JsonNode node) {
-    JsonNode summary = node.get("summary");
-    JsonNode description = node.get("description");
+  private static boolean repeatsSummary(JsonNode operation, JsonNode description) {
+    JsonNode summary = operation.get("summary");
     if (summary.isMissing() || description.isMissing()) {
-      return;
+      return false;
     }
     String summaryText = summary.stringValue().toLowerCase().trim();
     String descriptionText = description.stringValue().toLowerCase().trim();
-    if (summaryText.equals(descriptionText)) {
-      addIssue("Description must differ from summary.", description.key());
-    }
+    return summaryText.equals(descriptionText);
   }
 }
@@ -25,17 +25,21 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
+import org.sonar.plugins.openapi.api.CompiledPointer;
 import org.sonar.plugins.openapi.api.PreciseIssue;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 import org.sonar.sslr.yaml.grammar.impl.MissingNode;
 
 @Rule(key = DocumentedTagCheck.CHECK_KEY)
-public class DocumentedTagCheck extends OpenApiCheck {
+public class DocumentedTagCheck extends ScopedCheck<Map<String, JsonNode>> {
   public static final String CHECK_KEY = "DocumentedTag";
-  private final Map<String, JsonNode> tagNames = new HashMap<>();
+  private static final CompiledPointer TAGS = CompiledPointer.compile("/tags");
+  private static final CompiledPointer NAME = CompiledPointer.compile("/name");
+  private static final CompiledPointer DESCRIPTION = CompiledPointer.compile("/description");
 
   @Override
   public Set<AstNodeType> subscribedKinds() {
@@ -43,14 +47,19 @@ public class DocumentedTagCheck extends OpenApiCheck {
   }
 
   @Override
-  public void visitFile(JsonNode root) {
-    tagNames.clear();
-    JsonNode tagsArray = root.at("/tags").value();
+  protected Map<String, JsonNode> newState() {
+    return new HashMap<>();
+  }
+
+  @Override
+  protected void visitFile(CheckScope<Map<String, JsonNode>> scope, JsonNode root) {
+    Map<String, JsonNode> tagNames = scope.state();
+    JsonNode tagsArray = TAGS.from(root).value();
     if (tagsArray != null) {
       for (JsonNode element : tagsArray.elements()) {
-        JsonNode previous = tagNames.put(element.at("/name").value().getTokenValue(), element);
+        JsonNode previous = tagNames.put(NAME.from(element).value().getTokenValue(), element);
         if (previous != null) {
-          PreciseIssue issue = addIssue("Remove this duplicate tag.", element);
+          PreciseIssue issue = scope.addIssue("Remove this duplicate tag.", element);
           issue.secondary(previous, null);
         }
       }
@@ -59,28 +68,28 @@ public class DocumentedTagCheck extends OpenApiCheck {
 
 
   @Override
-  protected void visitNode(JsonNode node) {
+  protected void visitNode(CheckScope<Map<String, JsonNode>> scope, JsonNode node) {
     AstNodeType nodeType = node.getType();
     if (nodeType == OpenApi2Grammar.TAG || nodeType == OpenApi3Grammar.TAG) {
-      visitTag(node);
+      visitTag(scope, node);
     } else {
-      visitOperation(node);
+      visitOperation(scope, node);
     }
   }
 
-  private void visitTag(JsonNode node) {
-    JsonNode descriptionNode = node.at("/description").value();
+  private static void visitTag(CheckScope<Map<String, JsonNode>> scope, JsonNode node) {
+    JsonNode descriptionNode = DESCRIPTION.from(node).value();
     if (descriptionNode == MissingNode.MISSING) {
-      addIssue("Add a short description to this tag.", node);
+      scope.addIssue("Add a short description to this tag.", node);
     }
   }
 
-  private void visitOperation(JsonNode node) {
-    JsonNode tagsArray = node.at("/tags").value();
+  private static void visitOperation(CheckScope<Map<String, JsonNode>> scope, JsonNode node) {
+    JsonNode tagsArray = TAGS.from(node).value();
     if (tagsArray != MissingNode.MISSING) {
       for (JsonNode element : tagsArray.elements()) {
-        if (!tagNames.containsKey(element.getTokenValue())) {
-          addIssue("This tag should be declared in the tags section of the contract.", element);
+        if (!scope.state().containsKey(element.getTokenValue())) {
+          scope.addIssue("This tag should be declared in the tags section of the contract.", element);
         }
       }
     }
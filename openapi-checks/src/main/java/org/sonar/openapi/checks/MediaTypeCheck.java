@@ -26,16 +26,21 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
+import org.sonar.plugins.openapi.api.CompiledPointer;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = MediaTypeCheck.CHECK_KEY)
-public class MediaTypeCheck extends OpenApiCheck {
+public class MediaTypeCheck extends ScopedCheck<Void> {
   protected static final String CHECK_KEY = "MediaType";
   protected static final String MESSAGE_V2 = "Declared mime type should conform to RFC6838.";
   protected static final String MESSAGE_V3 = "Declared media type range should conform to RFC7231.";
+  private static final CompiledPointer PRODUCES = CompiledPointer.compile("/produces");
+  private static final CompiledPointer CONSUMES = CompiledPointer.compile("/consumes");
+  private static final CompiledPointer CONTENT = CompiledPointer.compile("/content");
 
   @VisibleForTesting
   static final Pattern MIME_TYPE_PATTERN = Pattern.compile("[a-zA-Z.0-9][a-zA-Z.0-9!#$&-_^+]+/[a-zA-Z.0-9][a-zA-Z.0-9!#$&-_^+]+(; charset=[a-zA-Z0-9-_]+)?");
@@ -48,54 +53,54 @@ public class MediaTypeCheck extends OpenApiCheck {
   }
 
   @Override
-  protected void visitNode(JsonNode node) {
+  protected void visitNode(CheckScope<Void> scope, JsonNode node) {
     if (node.getType() instanceof OpenApi2Grammar) {
-      visitOpenApi2(node);
+      visitOpenApi2(scope, node);
     } else {
-      visitOpenApi3(node);
+      visitOpenApi3(scope, node);
     }
   }
 
-  private void visitOpenApi2(JsonNode node) {
-    verifyMimeTypeArray(node.at("/produces"));
-    verifyMimeTypeArray(node.at("/consumes"));
+  private static void visitOpenApi2(CheckScope<Void> scope, JsonNode node) {
+    verifyMimeTypeArray(scope, PRODUCES.from(node));
+    verifyMimeTypeArray(scope, CONSUMES.from(node));
   }
 
-  private void verifyMimeTypeArray(JsonNode node) {
+  private static void verifyMimeTypeArray(CheckScope<Void> scope, JsonNode node) {
     for (JsonNode element : node.elements()) {
       if (!MIME_TYPE_PATTERN.matcher(element.getTokenValue()).matches()) {
-        addIssue(MESSAGE_V2, element);
+        scope.addIssue(MESSAGE_V2, element);
       }
     }
   }
 
-  private void visitOpenApi3(JsonNode node) {
+  private static void visitOpenApi3(CheckScope<Void> scope, JsonNode node) {
     if (node.getType() == OpenApi3Grammar.PARAMETER) {
-      verifyParameterContent(node);
+      verifyParameterContent(scope, node);
     } else {
-      verifyContent(node);
+      verifyContent(scope, node);
     }
   }
 
-  private void verifyParameterContent(JsonNode node) {
-    JsonNode content = node.at("/content");
+  private static void verifyParameterContent(CheckScope<Void> scope, JsonNode node) {
+    JsonNode content = CONTENT.from(node);
     Map<String, JsonNode> properties = content.propertyMap();
     for (JsonNode property : properties.values()) {
       JsonNode keyNode = property.key();
       String key = keyNode.getTokenValue();
       if (!MIME_TYPE_PATTERN.matcher(key).matches()) {
-        addIssue(MESSAGE_V2, keyNode);
+        scope.addIssue(MESSAGE_V2, keyNode);
       }
     }
   }
 
-  private void verifyContent(JsonNode node) {
-    JsonNode content = node.at("/content");
+  private static void verifyContent(CheckScope<Void> scope, JsonNode node) {
+    JsonNode content = CONTENT.from(node);
     for (JsonNode property : content.propertyMap().values()) {
       JsonNode keyNode = property.key();
       String key = keyNode.getTokenValue();
       if (!MEDIA_RANGE_PATTERN.matcher(key).matches()) {
-        addIssue(MESSAGE_V3, keyNode);
+        scope.addIssue(MESSAGE_V3, keyNode);
       }
     }
   }
@@ -19,41 +19,24 @@
  */
 package org.sonar.openapi.checks;
 
-import com.google.common.collect.Sets;
-import com.sonar.sslr.api.AstNodeType;
-import java.util.Map;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.Query;
+import org.sonar.plugins.openapi.api.QueryCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = NoContentIn204Check.CHECK_KEY)
-public class NoContentIn204Check extends OpenApiCheck {
+public class NoContentIn204Check extends QueryCheck {
   public static final String CHECK_KEY = "NoContentIn204";
 
   @Override
-  public Set<AstNodeType> subscribedKinds() {
-    return Sets.newHashSet(OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION);
-  }
-
-  @Override
-  protected void visitNode(JsonNode node) {
-    JsonNode responsesNode = node.at("/responses");
-    Map<String, JsonNode> responses = responsesNode.propertyMap();
-
-    responses.entrySet().stream()
-        .filter(e -> e.getKey().equals("204"))
-        .map(Map.Entry::getValue)
-        .forEach(this::checkNoContent);
-  }
-
-  private void checkNoContent(JsonNode response) {
-    JsonNode effective = response.resolve();
-    if (hasContent(effective)) {
-      addIssue("204 No Content MUST NOT return anything.", response.key());
-    }
+  protected List<Query> queries() {
+    return Collections.singletonList(Query.select("/responses/204", OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION)
+        .when((context, operation, response) -> !response.isMissing() && hasContent(context.symbolTable().resolve(response)))
+        .report("204 No Content MUST NOT return anything."));
   }
 
   private static boolean hasContent(JsonNode effective) {
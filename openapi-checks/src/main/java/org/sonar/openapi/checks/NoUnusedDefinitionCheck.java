@@ -25,13 +25,15 @@ import com.sonar.sslr.api.AstNodeType;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
+import org.sonar.plugins.openapi.api.CompiledPointer;
+import org.sonar.plugins.openapi.api.ScopedCheck;
+import org.sonar.plugins.openapi.api.SymbolTable;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
@@ -39,10 +41,14 @@ import org.sonar.sslr.yaml.grammar.Utils;
 import org.sonar.sslr.yaml.grammar.impl.MissingNode;
 
 @Rule(key = NoUnusedDefinitionCheck.CHECK_KEY)
-public class NoUnusedDefinitionCheck extends OpenApiCheck {
+public class NoUnusedDefinitionCheck extends ScopedCheck<Map<String, JsonNode>> {
   public static final String CHECK_KEY = "NoUnusedDefinition";
-
-  private final Map<String, JsonNode> unusedTags = new HashMap<>();
+  private static final CompiledPointer TAGS = CompiledPointer.compile("/tags");
+  private static final CompiledPointer NAME = CompiledPointer.compile("/name");
+  private static final CompiledPointer DISCRIMINATOR = CompiledPointer.compile("/discriminator");
+  private static final CompiledPointer PROPERTIES = CompiledPointer.compile("/properties");
+  private static final CompiledPointer MAPPING = CompiledPointer.compile("/mapping");
+  private static final JsonPointer DEFINITIONS = JsonPointer.compile("/definitions");
 
   @Override
   public Set<AstNodeType> subscribedKinds() {
@@ -50,43 +56,48 @@ public class NoUnusedDefinitionCheck extends OpenApiCheck {
   }
 
   @Override
-  protected void visitFile(JsonNode root) {
-    findTags(root);
+  protected Map<String, JsonNode> newState() {
+    return new HashMap<>();
+  }
+
+  @Override
+  protected void visitFile(CheckScope<Map<String, JsonNode>> scope, JsonNode root) {
+    findTags(scope.state(), root);
     if (root.getType() == OpenApi2Grammar.ROOT) {
-      inspectOpenApi2(root);
+      inspectOpenApi2(scope, root);
     } else {
-      inspectOpenApi3(root);
+      inspectOpenApi3(scope, root);
     }
   }
 
   @Override
-  public void visitNode(JsonNode operation) {
-    JsonNode tagsArray = operation.at("/tags").value();
+  protected void visitNode(CheckScope<Map<String, JsonNode>> scope, JsonNode operation) {
+    JsonNode tagsArray = TAGS.from(operation).value();
     if (tagsArray != MissingNode.MISSING) {
       for (JsonNode element : tagsArray.elements()) {
-        unusedTags.remove(element.getTokenValue());
+        scope.state().remove(element.getTokenValue());
       }
     }
   }
 
   @Override
-  protected void leaveFile(JsonNode node) {
-    for (JsonNode tag : unusedTags.values()) {
-      addIssue("Unused tag.", tag);
+  protected void leaveFile(CheckScope<Map<String, JsonNode>> scope, JsonNode node) {
+    for (JsonNode tag : scope.state().values()) {
+      scope.addIssue("Unused tag.", tag);
     }
   }
 
   private static Set<JsonPointer> openApi2Dicriminators(JsonNode n) {
-    JsonNode d = n.at("/discriminator");
+    JsonNode d = DISCRIMINATOR.from(n);
     if (d.isMissing()) {
       return Collections.emptySet();
     }
-    JsonNode at = n.at("/properties/" + d.getTokenValue() + "/enum");
+    JsonNode at = PROPERTIES.append(d.getTokenValue()).append("enum").from(n);
     if (at.isArray()) {
       return at.elements().stream()
           .map(JsonNode::getTokenValue)
           .map(Utils::escape)
-          .map(p -> JsonPointer.compile("/definitions").append(p))
+          .map(DEFINITIONS::append)
           .collect(Collectors.toSet());
     } else {
       return Collections.emptySet();
@@ -94,80 +105,61 @@ public class NoUnusedDefinitionCheck extends OpenApiCheck {
   }
 
   private static Set<JsonPointer> openApi3Dicriminators(JsonNode n) {
-    JsonNode d = n.at("/discriminator");
+    JsonNode d = DISCRIMINATOR.from(n);
     if (d.isMissing()) {
       return Collections.emptySet();
     }
-    return d.at("/mapping").propertyMap().values().stream()
+    return MAPPING.from(d).propertyMap().values().stream()
         .map(JsonNode::getTokenValue)
         .map(s -> s.substring(1))
         .map(JsonPointer::compile)
         .collect(Collectors.toSet());
   }
 
-  private void inspectOpenApi2(JsonNode root) {
-    Set<JsonPointer> used = usedReferences(root, NoUnusedDefinitionCheck::openApi2Dicriminators);
-    reportUnused(root, "/definitions", "Unused schema", used);
-    reportUnused(root, "/parameters", "Unused parameter", used);
-    reportUnused(root, "/responses", "Unused response", used);
+  private static void inspectOpenApi2(CheckScope<?> scope, JsonNode root) {
+    Set<JsonPointer> used = discriminatedReferences(scope, OpenApi2Grammar.SCHEMA, NoUnusedDefinitionCheck::openApi2Dicriminators);
+    reportUnused(scope, root, "/definitions", "Unused schema", used);
+    reportUnused(scope, root, "/parameters", "Unused parameter", used);
+    reportUnused(scope, root, "/responses", "Unused response", used);
   }
 
-  private void inspectOpenApi3(JsonNode root) {
-    Set<JsonPointer> used = usedReferences(root, NoUnusedDefinitionCheck::openApi3Dicriminators);
-    reportUnused(root, "/components/schemas", "Unused schema", used);
-    reportUnused(root, "/components/parameters", "Unused parameter", used);
-    reportUnused(root, "/components/responses", "Unused response", used);
-    reportUnused(root, "/components/examples", "Unused example", used);
-    reportUnused(root, "/components/requestBodies", "Unused request body", used);
-    reportUnused(root, "/components/headers", "Unused header", used);
-    reportUnused(root, "/components/links", "Unused link", used);
-    reportUnused(root, "/components/callbacks", "Unused callback", used);
+  private static void inspectOpenApi3(CheckScope<?> scope, JsonNode root) {
+    Set<JsonPointer> used = discriminatedReferences(scope, OpenApi3Grammar.SCHEMA, NoUnusedDefinitionCheck::openApi3Dicriminators);
+    reportUnused(scope, root, "/components/schemas", "Unused schema", used);
+    reportUnused(scope, root, "/components/parameters", "Unused parameter", used);
+    reportUnused(scope, root, "/components/responses", "Unused response", used);
+    reportUnused(scope, root, "/components/examples", "Unused example", used);
+    reportUnused(scope, root, "/components/requestBodies", "Unused request body", used);
+    reportUnused(scope, root, "/components/headers", "Unused header", used);
+    reportUnused(scope, root, "/components/links", "Unused link", used);
+    reportUnused(scope, root, "/components/callbacks", "Unused callback", used);
   }
 
-  private void findTags(JsonNode root) {
-    unusedTags.clear();
-    JsonNode tagsArray = root.at("/tags").value();
+  private static void findTags(Map<String, JsonNode> unusedTags, JsonNode root) {
+    JsonNode tagsArray = TAGS.from(root).value();
     if (tagsArray != null) {
       for (JsonNode element : tagsArray.elements()) {
-        unusedTags.putIfAbsent(element.at("/name").stringValue(), element);
+        unusedTags.putIfAbsent(NAME.from(element).stringValue(), element);
       }
     }
   }
 
-  private void reportUnused(JsonNode root, String pointer, String message, Set<JsonPointer> used) {
-    JsonPointer jsonPointer = JsonPointer.compile(pointer);
-    Set<JsonPointer> pointers = root.at(pointer)
+  private static void reportUnused(CheckScope<?> scope, JsonNode root, String pointer, String message, Set<JsonPointer> discriminated) {
+    SymbolTable symbols = scope.context().symbolTable();
+    CompiledPointer section = CompiledPointer.compile(pointer);
+    section.from(root)
         .propertyNames().stream()
-        .map(s -> jsonPointer.append(Utils.escape(s)))
-        .collect(Collectors.toSet());
-
-    Sets.difference(pointers, used).forEach(p ->
-        addIssue(message, root.at(p).key())
-        );
+        .map(section::append)
+        .filter(p -> !symbols.isReferenced(p.toString()) && !discriminated.contains(p.toJsonPointer()))
+        .forEach(p -> scope.addIssue(message, p.from(root).key()));
   }
 
-  private static Set<JsonPointer> usedReferences(JsonNode node, Function<JsonNode, Set<JsonPointer>> discriminators) {
-    if (node.isArray()) {
-      return node.elements().stream().flatMap(n -> usedReferences(n, discriminators).stream()).collect(Collectors.toSet());
-    } else if (node.isObject()) {
-      Set<JsonPointer> refs = new HashSet<>();
-      refs.addAll(getReference(node));
-      refs.addAll(discriminators.apply(node));
-      refs.addAll(node.propertyMap()
-          .values().stream()
-          .flatMap(n -> usedReferences(n, discriminators).stream())
-          .collect(Collectors.toSet()));
-      return refs;
-    } else {
-      return Collections.emptySet();
-    }
-  }
-
-  private static List<JsonPointer> getReference(JsonNode node) {
-    if (node.isRef()) {
-      return Collections.singletonList(JsonPointer.compile(node.at("/$ref").getTokenValue().substring(1)));
-    } else {
-      return Collections.emptyList();
+  private static Set<JsonPointer> discriminatedReferences(CheckScope<?> scope, AstNodeType schemaType,
+                                                         Function<JsonNode, Set<JsonPointer>> discriminators) {
+    Set<JsonPointer> refs = new HashSet<>();
+    for (JsonNode schema : scope.context().nodesOfType(schemaType)) {
+      refs.addAll(discriminators.apply(schema));
     }
+    return refs;
   }
 }
@@ -22,30 +22,31 @@ package org.sonar.openapi.checks;
 import com.sonar.sslr.api.RecognitionException;
 import java.util.List;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.CheckScope;
 import org.sonar.plugins.openapi.api.OpenApiVisitorContext;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.sslr.yaml.grammar.ValidationException;
 import org.sonar.sslr.yaml.grammar.ValidationIssue;
 
 @Rule(key = ParsingErrorCheck.CHECK_KEY)
-public class ParsingErrorCheck extends OpenApiCheck {
+public class ParsingErrorCheck extends ScopedCheck<Void> {
 
   public static final String CHECK_KEY = "ParsingError";
 
   @Override
-  public void scanFile(OpenApiVisitorContext context) {
-    super.scanFile(context);
+  protected void visitContext(CheckScope<Void> scope) {
+    OpenApiVisitorContext context = scope.context();
     RecognitionException parsingException = context.parsingException();
     if (parsingException instanceof ValidationException) {
       for (ValidationException issue : ((ValidationException) parsingException).getCauses()) {
-        addIssue(issue.formatMessage(), issue.getNode());
+        scope.addIssue(issue.formatMessage(), issue.getNode());
       }
     } else if (parsingException != null) {
-      addLineIssue(parsingException.getMessage(), parsingException.getLine());
+      scope.addLineIssue(parsingException.getMessage(), parsingException.getLine());
     } else {
       List<ValidationIssue> issues = context.getIssues();
       for (ValidationIssue issue : issues) {
-        addIssue(issue.formatMessage(), issue.getNode());
+        scope.addIssue(issue.formatMessage(), issue.getNode());
       }
     }
   }
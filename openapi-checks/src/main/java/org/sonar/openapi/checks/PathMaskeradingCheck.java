@@ -27,9 +27,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import org.sonar.check.Rule;
+import org.sonar.plugins.openapi.api.CheckScope;
 import org.sonar.plugins.openapi.api.IssueLocation;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
 import org.sonar.plugins.openapi.api.PreciseIssue;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
@@ -41,7 +42,7 @@ import static org.sonar.openapi.checks.PathMaskeradingCheck.ConflictMode.UNKNOWN
 import static org.sonar.plugins.openapi.api.PathUtils.isVariable;
 
 @Rule(key = PathMaskeradingCheck.CHECK_KEY)
-public class PathMaskeradingCheck extends OpenApiCheck {
+public class PathMaskeradingCheck extends ScopedCheck<Void> {
   public static final String MASK_MESSAGE = "These paths are masking each other.";
   private static final String AMBIGUOUS_MESSAGE = "These paths are ambiguous.";
   public static final String CHECK_KEY = "PathMaskerading";
@@ -82,7 +83,7 @@ public class PathMaskeradingCheck extends OpenApiCheck {
   }
 
   @Override
-  public void visitNode(JsonNode node) {
+  protected void visitNode(CheckScope<Void> scope, JsonNode node) {
     List<List<Bucket>> pathsByLength = sortPathsByLength(node.propertyMap().values());
     for (List<Bucket> buckets : pathsByLength) {
       for (int i = 0; i < buckets.size() - 1; ++i) {
@@ -90,7 +91,7 @@ public class PathMaskeradingCheck extends OpenApiCheck {
           ConflictMode mode = new ConflictChecker().check(buckets.get(i).path, buckets.get(j).path);
           if (mode != NONE) {
             String message = mode == MASKED ? MASK_MESSAGE : AMBIGUOUS_MESSAGE;
-            PreciseIssue issue = addIssue(message, buckets.get(i).node);
+            PreciseIssue issue = scope.addIssue(message, buckets.get(i).node);
             issue.secondary(IssueLocation.preciseLocation(message, buckets.get(j).node));
           }
         }
@@ -98,7 +99,7 @@ public class PathMaskeradingCheck extends OpenApiCheck {
     }
   }
 
-  private List<List<Bucket>> sortPathsByLength(Collection<JsonNode> properties) {
+  private static List<List<Bucket>> sortPathsByLength(Collection<JsonNode> properties) {
     ArrayList<List<Bucket>> result = new ArrayList<>();
     for (JsonNode property : properties) {
       JsonNode keyNode = property.key();
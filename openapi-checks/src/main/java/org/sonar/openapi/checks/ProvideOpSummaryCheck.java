@@ -19,29 +19,23 @@
  */
 package org.sonar.openapi.checks;
 
-import com.google.common.collect.Sets;
-import com.sonar.sslr.api.AstNodeType;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 import org.sonar.check.Rule;
-import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.Query;
+import org.sonar.plugins.openapi.api.QueryCheck;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 @Rule(key = ProvideOpSummaryCheck.CHECK_KEY)
-public class ProvideOpSummaryCheck extends OpenApiCheck {
+public class ProvideOpSummaryCheck extends QueryCheck {
   public static final String CHECK_KEY = "ProvideOpSummary";
 
   @Override
-  public Set<AstNodeType> subscribedKinds() {
-    return Sets.newHashSet(OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION);
-  }
-
-  @Override
-  protected void visitNode(JsonNode node) {
-    JsonNode summary = node.get("summary");
-    if (summary.isMissing()) {
-      addIssue("Provide a summary for each operation.", node.key());
-    }
+  protected List<Query> queries() {
+    return Collections.singletonList(Query.select("/summary", OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION)
+      .when(JsonNode::isMissing)
+      .reportOnSubject("Provide a summary for each operation."));
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi.checks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.sonar.openapi.OpenApiCheckVerifier;
+import org.sonar.plugins.openapi.api.OpenApiCheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharedChecksTest {
+  private static final int THREADS = 4;
+  private static final int RUNS = 4;
+
+  @Test
+  public void one_instance_of_each_check_verifies_its_files_concurrently() throws Exception {
+    List<Verification> verifications = new ArrayList<>();
+    add(verifications, new AtMostOneBodyParameterCheck(), "many-body-params.yaml", true);
+    add(verifications, new DeclaredTagCheck(), "declared-tag.yaml", true, false);
+    add(verifications, new DefaultResponseCheck(), "default-response.yaml", true, false);
+    add(verifications, new DefinedResponseCheck(), "defined-response.yaml", true, false);
+    add(verifications, new DescriptionDiffersSummaryCheck(), "different-description.yaml", true, false);
+    add(verifications, new DocumentedTagCheck(), "documented-tag.yaml", true, false);
+    add(verifications, new MediaTypeCheck(), "media-type.yaml", true, false);
+    add(verifications, new NoContentIn204Check(), "no-content-in-204.yaml", true, false);
+    add(verifications, new NoUnusedDefinitionCheck(), "unused-definition.yaml", true, false);
+    add(verifications, new PathMaskeradingCheck(), "path-maskerading.yaml", true, false);
+    add(verifications, new ProvideOpSummaryCheck(), "provide-summary.yaml", true, false);
+
+    // the parsing errors are covered by ParsingErrorCheckTest
+    Set<String> verified = new HashSet<>();
+    verifications.forEach(v -> verified.add(v.check.getClass().getName()));
+    verified.add(ParsingErrorCheck.class.getName());
+    Set<String> allChecks = new HashSet<>();
+    for (Class<?> checkClass : CheckList.getChecks()) {
+      allChecks.add(checkClass.getName());
+    }
+    assertThat(verified).isEqualTo(allChecks);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < RUNS; ++i) {
+        for (Verification verification : verifications) {
+          results.add(executor.submit(verification));
+        }
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void add(List<Verification> verifications, OpenApiCheck check, String fileName, boolean... versions) {
+    for (boolean isV2 : versions) {
+      verifications.add(new Verification(check, "src/test/resources/checks/" + (isV2 ? "v2/" : "v3/") + fileName, isV2));
+    }
+  }
+
+  private static class Verification implements Runnable {
+    private final OpenApiCheck check;
+    private final String path;
+    private final boolean isV2;
+
+    private Verification(OpenApiCheck check, String path, boolean isV2) {
+      this.check = check;
+      this.path = path;
+      this.isV2 = isV2;
+    }
+
+    @Override
+    public void run() {
+      OpenApiCheckVerifier.verify(path, check, isV2);
+    }
+  }
+}
@@ -22,12 +22,33 @@ package org.sonar.openapi;
 import java.nio.charset.Charset;
 
 public class OpenApiConfiguration {
+  public static final int DEFAULT_MAX_ALIASES = 10_000;
+  public static final int DEFAULT_MAX_DEPTH = 1_000;
+  public static final long DEFAULT_MAX_NODES = 10_000_000L;
+
   private Charset charset;
   private boolean strict;
+  private int maxAliases;
+  private int maxDepth;
+  private long maxNodes;
 
   public OpenApiConfiguration(Charset charset, boolean strict) {
+    this(charset, strict, DEFAULT_MAX_ALIASES, DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES);
+  }
+
+  /**
+   * @param charset the encoding of the files
+   * @param strict {@code true} to fail on validation errors
+   * @param maxAliases the maximum number of YAML aliases in a file
+   * @param maxDepth the maximum nesting depth of a file
+   * @param maxNodes the maximum number of values in a file, once its YAML aliases are expanded
+   */
+  public OpenApiConfiguration(Charset charset, boolean strict, int maxAliases, int maxDepth, long maxNodes) {
     this.charset = charset;
     this.strict = strict;
+    this.maxAliases = maxAliases;
+    this.maxDepth = maxDepth;
+    this.maxNodes = maxNodes;
   }
 
   public Charset getCharset() {
@@ -37,4 +58,16 @@ public class OpenApiConfiguration {
   public boolean isStrict() {
     return strict;
   }
+
+  public int getMaxAliases() {
+    return maxAliases;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public long getMaxNodes() {
+    return maxNodes;
+  }
 }
@@ -19,7 +19,11 @@
  */
 package org.sonar.openapi.metrics;
 
-import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import java.util.Arrays;
+import java.util.List;
+import org.sonar.plugins.openapi.api.CompositeVisitor;
+import org.sonar.plugins.openapi.api.OpenApiVisitor;
 import org.sonar.plugins.openapi.api.OpenApiVisitorContext;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
@@ -30,47 +34,39 @@ import org.sonar.sslr.yaml.grammar.JsonNode;
  */
 public class FileMetrics {
 
-  private int numberOfSchemas;
-  private int numberOfPaths;
-  private int numberOfOperations;
-
+  private final ObjectCountVisitor objectCountVisitor = new ObjectCountVisitor();
   private final ComplexityVisitor complexityVisitor = new ComplexityVisitor();
-  private final FileLinesVisitor fileLinesVisitor;
+  private final FileLinesVisitor fileLinesVisitor = new FileLinesVisitor();
 
   public FileMetrics(OpenApiVisitorContext context) {
-    countObjects(context);
-    complexityVisitor.scanFile(context);
-    fileLinesVisitor = new FileLinesVisitor();
-    fileLinesVisitor.scanFile(context);
+    new CompositeVisitor(visitors()).scanFile(context);
   }
 
-  private void countObjects(OpenApiVisitorContext context) {
-    AstNode rootTree = context.rootTree();
-    if (rootTree != null) {
-      numberOfSchemas = (int)rootTree.getDescendants(OpenApi2Grammar.SCHEMA, OpenApi3Grammar.SCHEMA)
-          .stream().filter(FileMetrics::isNotRef)
-          .count();
-      numberOfPaths = (int)rootTree.getDescendants(OpenApi2Grammar.PATH, OpenApi3Grammar.PATH)
-          .stream().filter(FileMetrics::isNotRef)
-          .count();
-      numberOfOperations = rootTree.getDescendants(OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION).size();
-    } else {
-      numberOfSchemas = 0;
-      numberOfPaths = 0;
-      numberOfOperations = 0;
-    }
+  /**
+   * Creates metrics that are computed by a walk shared with other visitors, see {@link #visitors()}. The same instance
+   * can be reused for several files, provided its values are read after each file has been visited.
+   */
+  public FileMetrics() {
+    // metrics are computed by the visitors
+  }
+
+  /**
+   * Gives the visitors computing these metrics, to run them alongside other visitors in a {@link CompositeVisitor}.
+   */
+  public List<OpenApiVisitor> visitors() {
+    return Arrays.asList(objectCountVisitor, complexityVisitor, fileLinesVisitor);
   }
 
   public int numberOfOperations() {
-    return numberOfOperations;
+    return objectCountVisitor.numberOfOperations;
   }
 
   public int numberOfPaths() {
-    return numberOfPaths;
+    return objectCountVisitor.numberOfPaths;
   }
 
   public int numberOfSchemas() {
-    return numberOfSchemas;
+    return objectCountVisitor.numberOfSchemas;
   }
 
   public int complexity() {
@@ -81,8 +77,38 @@ public class FileMetrics {
     return fileLinesVisitor;
   }
 
-  private static boolean isNotRef(AstNode node) {
-    return !((JsonNode)node).isRef();
+  private static class ObjectCountVisitor extends OpenApiVisitor {
+    private int numberOfSchemas;
+    private int numberOfPaths;
+    private int numberOfOperations;
+
+    @Override
+    protected boolean isSubscribed(AstNodeType nodeType) {
+      return nodeType == OpenApi2Grammar.SCHEMA || nodeType == OpenApi3Grammar.SCHEMA
+          || nodeType == OpenApi2Grammar.PATH || nodeType == OpenApi3Grammar.PATH
+          || nodeType == OpenApi2Grammar.OPERATION || nodeType == OpenApi3Grammar.OPERATION;
+    }
+
+    @Override
+    protected void visitFile(JsonNode root) {
+      numberOfSchemas = 0;
+      numberOfPaths = 0;
+      numberOfOperations = 0;
+    }
+
+    @Override
+    protected void visitNode(JsonNode node) {
+      AstNodeType type = node.getType();
+      if (type == OpenApi2Grammar.OPERATION || type == OpenApi3Grammar.OPERATION) {
+        numberOfOperations++;
+      } else if (!node.isRef()) {
+        if (type == OpenApi2Grammar.PATH || type == OpenApi3Grammar.PATH) {
+          numberOfPaths++;
+        } else {
+          numberOfSchemas++;
+        }
+      }
+    }
   }
 
 }
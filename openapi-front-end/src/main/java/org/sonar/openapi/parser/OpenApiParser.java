@@ -22,18 +22,69 @@ package org.sonar.openapi.parser;
 import org.sonar.openapi.OpenApiConfiguration;
 import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.grammar.GrammarRuleKey;
+import org.sonar.sslr.yaml.grammar.YamlGrammarBuilder;
 import org.sonar.sslr.yaml.grammar.YamlParser;
 
+/**
+ * Creates the parsers of OpenAPI contracts.
+ * <p>
+ * Each grammar is built once per JVM, the first time a parser of its version is requested, and shared by all the
+ * parsers of that version. The shared grammars are never handed out, so they cannot be modified; use
+ * {@link OpenApi2Grammar#create()} or {@link OpenApi3Grammar#create()} to get a grammar to customize.
+ * <p>
+ * This class can be used from several threads, but the parsers it creates keep the issues of the last parsed file and
+ * must not be shared between threads.
+ */
 public class OpenApiParser {
   private OpenApiParser() {
     // Hidden utility class constructor
   }
 
   public static YamlParser createV2(OpenApiConfiguration configuration) {
-    return YamlParser.builder().withCharset(configuration.getCharset()).withGrammar(OpenApi2Grammar.create()).withStrictValidation(configuration.isStrict()).build();
+    return create(V2Grammar.INSTANCE, configuration);
   }
 
   public static YamlParser createV3(OpenApiConfiguration configuration) {
-    return YamlParser.builder().withCharset(configuration.getCharset()).withGrammar(OpenApi3Grammar.create()).withStrictValidation(configuration.isStrict()).build();
+    return create(V3Grammar.INSTANCE, configuration);
+  }
+
+  /**
+   * Creates a parser for the documents that are not complete contracts, such as the files of shared components that
+   * contracts reference. The content of these documents is not validated.
+   */
+  public static YamlParser createFragment(OpenApiConfiguration configuration) {
+    return create(FragmentGrammar.INSTANCE, configuration);
+  }
+
+  private static YamlParser create(YamlGrammarBuilder grammar, OpenApiConfiguration configuration) {
+    // the parser builder reads the grammar, which is not known to be safe for concurrent use
+    synchronized (grammar) {
+      return YamlParser.builder().withCharset(configuration.getCharset()).withGrammar(grammar).withStrictValidation(configuration.isStrict()).build();
+    }
+  }
+
+  // holder classes, so that each grammar is only built when first needed
+  private static class V2Grammar {
+    private static final YamlGrammarBuilder INSTANCE = OpenApi2Grammar.create();
+  }
+
+  private static class V3Grammar {
+    private static final YamlGrammarBuilder INSTANCE = OpenApi3Grammar.create();
+  }
+
+  private enum Fragment implements GrammarRuleKey {
+    DOCUMENT
+  }
+
+  private static class FragmentGrammar {
+    private static final YamlGrammarBuilder INSTANCE = create();
+
+    private static YamlGrammarBuilder create() {
+      YamlGrammarBuilder b = new YamlGrammarBuilder();
+      b.rule(Fragment.DOCUMENT).is(b.anything());
+      b.setRootRule(Fragment.DOCUMENT);
+      return b;
+    }
   }
 }
@@ -0,0 +1,213 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi.parser;
+
+import java.util.Optional;
+
+/**
+ * Finds the version of an OpenAPI contract from the beginning of the file, without parsing it: a v2 contract has a
+ * top-level {@code swagger} key, a v3 contract a top-level {@code openapi} key. Both YAML block mappings and
+ * JSON (or YAML flow) objects are recognized.
+ */
+public class OpenApiVersionDetector {
+  /**
+   * Number of bytes to read from the beginning of a file; the version key is almost always among the first ones.
+   */
+  public static final int HEADER_SIZE = 1024;
+
+  public enum Version {
+    V2, V3
+  }
+
+  private OpenApiVersionDetector() {
+    // Hidden utility class constructor
+  }
+
+  /**
+   * @param header the beginning of the file, possibly truncated anywhere
+   * @return the version of the contract, or nothing if the header holds none of the version keys
+   */
+  public static Optional<Version> detect(CharSequence header) {
+    int start = skipBlanksAndComments(header, header.length() > 0 && header.charAt(0) == '\uFEFF' ? 1 : 0);
+    if (start < header.length() && header.charAt(start) == '{') {
+      return detectInFlow(header, start);
+    }
+    return detectInBlock(header, start);
+  }
+
+  private static Optional<Version> detectInBlock(CharSequence header, int start) {
+    int lineStart = start;
+    while (lineStart < header.length()) {
+      int lineEnd = lineStart;
+      while (lineEnd < header.length() && header.charAt(lineEnd) != '\n') {
+        ++lineEnd;
+      }
+      Optional<Version> version = detectInLine(header, lineStart, lineEnd);
+      if (version.isPresent()) {
+        return version;
+      }
+      lineStart = lineEnd + 1;
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Only lines without indentation hold top-level keys.
+   */
+  private static Optional<Version> detectInLine(CharSequence header, int start, int end) {
+    if (start == end) {
+      return Optional.empty();
+    }
+    char first = header.charAt(start);
+    int keyEnd;
+    String key;
+    if (first == '"' || first == '\'') {
+      keyEnd = closingQuote(header, start, end);
+      if (keyEnd < 0) {
+        return Optional.empty();
+      }
+      key = header.subSequence(start + 1, keyEnd).toString();
+      ++keyEnd;
+    } else {
+      keyEnd = start;
+      while (keyEnd < end && isPlainKeyChar(header.charAt(keyEnd))) {
+        ++keyEnd;
+      }
+      key = header.subSequence(start, keyEnd).toString();
+    }
+    int colon = skipSpaces(header, keyEnd, end);
+    if (colon < end && header.charAt(colon) == ':' && (colon + 1 == end || Character.isWhitespace(header.charAt(colon + 1)))) {
+      return versionOf(key);
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<Version> detectInFlow(CharSequence header, int start) {
+    int depth = 0;
+    boolean expectKey = false;
+    int i = start;
+    while (i < header.length()) {
+      char c = header.charAt(i);
+      if (c == '"' || c == '\'') {
+        int end = closingQuote(header, i, header.length());
+        if (end < 0) {
+          return Optional.empty();
+        }
+        if (expectKey && isKey(header, end + 1)) {
+          Optional<Version> version = versionOf(header.subSequence(i + 1, end).toString());
+          if (version.isPresent()) {
+            return version;
+          }
+        }
+        expectKey = false;
+        i = end + 1;
+        continue;
+      }
+      if (c == '{' || c == '[') {
+        ++depth;
+        expectKey = depth == 1;
+      } else if (c == '}' || c == ']') {
+        --depth;
+        expectKey = false;
+      } else if (c == ',') {
+        expectKey = depth == 1;
+      } else if (expectKey && isPlainKeyChar(c)) {
+        int end = i;
+        while (end < header.length() && isPlainKeyChar(header.charAt(end))) {
+          ++end;
+        }
+        if (isKey(header, end)) {
+          Optional<Version> version = versionOf(header.subSequence(i, end).toString());
+          if (version.isPresent()) {
+            return version;
+          }
+        }
+        expectKey = false;
+        i = end;
+        continue;
+      } else if (!Character.isWhitespace(c)) {
+        expectKey = false;
+      }
+      ++i;
+    }
+    return Optional.empty();
+  }
+
+  private static boolean isKey(CharSequence header, int afterKey) {
+    int colon = skipSpaces(header, afterKey, header.length());
+    return colon < header.length() && header.charAt(colon) == ':';
+  }
+
+  private static Optional<Version> versionOf(String key) {
+    if ("swagger".equals(key)) {
+      return Optional.of(Version.V2);
+    } else if ("openapi".equals(key)) {
+      return Optional.of(Version.V3);
+    }
+    return Optional.empty();
+  }
+
+  private static int closingQuote(CharSequence header, int openingQuote, int end) {
+    char quote = header.charAt(openingQuote);
+    for (int i = openingQuote + 1; i < end; ++i) {
+      char c = header.charAt(i);
+      if (c == '\\' && quote == '"') {
+        ++i;
+      } else if (c == quote) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipBlanksAndComments(CharSequence header, int start) {
+    int i = start;
+    while (i < header.length()) {
+      char c = header.charAt(i);
+      if (Character.isWhitespace(c)) {
+        ++i;
+      } else if (c == '#' || c == '%' || startsWith(header, i, "---")) {
+        // comments, directives and document start markers
+        while (i < header.length() && header.charAt(i) != '\n') {
+          ++i;
+        }
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static boolean startsWith(CharSequence header, int start, String prefix) {
+    return header.length() - start >= prefix.length() && header.subSequence(start, start + prefix.length()).toString().equals(prefix);
+  }
+
+  private static int skipSpaces(CharSequence header, int start, int end) {
+    int i = start;
+    while (i < end && (header.charAt(i) == ' ' || header.charAt(i) == '\t')) {
+      ++i;
+    }
+    return i;
+  }
+
+  private static boolean isPlainKeyChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.';
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi.parser;
+
+import com.sonar.sslr.api.RecognitionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import org.sonar.openapi.OpenApiConfiguration;
+
+/**
+ * Checks the limits of {@link OpenApiConfiguration} on a document before it is parsed.
+ * <p>
+ * The parser copies the anchored node at each YAML alias, so a small document with nested aliases can expand to a tree
+ * that does not fit in memory ("billion laughs"). This class scans the text once, in linear time, and estimates the
+ * size of the expanded tree by counting values: each alias counts as many values as its anchor. Only the names of the
+ * anchors defined so far are taken as aliases, so that a {@code *} starting a word of a plain scalar, such as a
+ * Markdown bullet in a multi-line description, is not counted as one. The scan does not
+ * validate the document, and the estimate errs on the small side for the odd constructs it does not follow, such as
+ * anchors on implicit mappings.
+ */
+public final class YamlLimits {
+  private final CharSequence text;
+  private final OpenApiConfiguration configuration;
+  private final Map<String, Long> anchorSizes = new HashMap<>();
+  private final Deque<Anchor> openAnchors = new ArrayDeque<>();
+  private final Deque<Integer> indents = new ArrayDeque<>();
+  private Anchor pendingAnchor;
+  private int position;
+  private int line = 1;
+  private int lineIndent;
+  private int flowDepth;
+  private int blockScalarIndent = -1;
+  private int aliases;
+  private long values;
+
+  private YamlLimits(CharSequence text, OpenApiConfiguration configuration) {
+    this.text = text;
+    this.configuration = configuration;
+  }
+
+  /**
+   * @param text the document to check
+   * @param configuration the limits to check
+   * @throws RecognitionException if the document exceeds one of the limits
+   */
+  public static void check(CharSequence text, OpenApiConfiguration configuration) {
+    new YamlLimits(text, configuration).scan();
+  }
+
+  private void scan() {
+    boolean lineStart = true;
+    while (position < text.length()) {
+      if (lineStart) {
+        lineStart = false;
+        if (!startLine()) {
+          lineStart = true;
+          continue;
+        }
+      }
+      char c = text.charAt(position);
+      if (c == '\n') {
+        newLine();
+        lineStart = true;
+      } else if (c == '#' && isTokenStart()) {
+        skipToEndOfLine();
+      } else if (c == '"' || c == '\'') {
+        skipQuoted(c);
+        value();
+      } else if (c == '[' || c == '{') {
+        ++position;
+        openFlow();
+      } else if (c == ']' || c == '}') {
+        ++position;
+        closeFlow();
+      } else if (c == '&' && isTokenStart() && isNameStart(position + 1)) {
+        pendingAnchor = new Anchor(readName(), values, lineIndent, flowDepth);
+      } else if (c == '*' && isTokenStart() && isNameStart(position + 1)) {
+        int start = position;
+        String name = readName();
+        if (isAnchor(name)) {
+          alias(name);
+        } else {
+          // part of a plain scalar
+          position = start;
+          skipPlain();
+          value();
+        }
+      } else if ((c == '|' || c == '>') && flowDepth == 0 && isTokenStart()) {
+        blockScalarIndent = lineIndent;
+        skipToEndOfLine();
+        value();
+      } else if (isSeparator(c)) {
+        ++position;
+      } else {
+        skipPlain();
+        value();
+      }
+    }
+    closeAnchors(Integer.MIN_VALUE);
+  }
+
+  /**
+   * Reads the indentation of a line, and skips the line if it is blank, a comment or part of a block scalar.
+   * @return {@code true} if the rest of the line is to be scanned
+   */
+  private boolean startLine() {
+    int indent = 0;
+    while (position < text.length() && text.charAt(position) == ' ') {
+      ++position;
+      ++indent;
+    }
+    if (position >= text.length()) {
+      return false;
+    }
+    char c = text.charAt(position);
+    if (c == '\n' || c == '\r' || c == '#') {
+      skipLine();
+      return false;
+    }
+    if (blockScalarIndent >= 0) {
+      if (indent > blockScalarIndent) {
+        skipLine();
+        return false;
+      }
+      blockScalarIndent = -1;
+    }
+    if (flowDepth == 0) {
+      lineIndent = indent;
+      closeAnchors(indent);
+      while (!indents.isEmpty() && indents.peek() >= indent) {
+        indents.pop();
+      }
+      indents.push(indent);
+      checkDepth();
+    }
+    return true;
+  }
+
+  private void newLine() {
+    ++position;
+    ++line;
+    if (pendingAnchor != null && flowDepth == 0) {
+      // the anchored node is the block that follows
+      openAnchors.push(pendingAnchor);
+      pendingAnchor = null;
+    }
+  }
+
+  private void openFlow() {
+    ++flowDepth;
+    checkDepth();
+    if (pendingAnchor != null) {
+      // the anchored node is this collection, which ends with its closing bracket
+      pendingAnchor.inFlow = true;
+      openAnchors.push(pendingAnchor);
+      pendingAnchor = null;
+    }
+    value();
+  }
+
+  private void closeFlow() {
+    if (flowDepth > 0) {
+      --flowDepth;
+    }
+    while (!openAnchors.isEmpty() && openAnchors.peek().inFlow && openAnchors.peek().flowDepth >= flowDepth) {
+      close(openAnchors.pop());
+    }
+  }
+
+  private void closeAnchors(int indent) {
+    while (!openAnchors.isEmpty() && openAnchors.peek().indent >= indent) {
+      close(openAnchors.pop());
+    }
+    if (pendingAnchor != null && indent == Integer.MIN_VALUE) {
+      close(pendingAnchor);
+      pendingAnchor = null;
+    }
+  }
+
+  private void close(Anchor anchor) {
+    anchorSizes.put(anchor.name, Math.max(1, values - anchor.start));
+  }
+
+  private void alias(String name) {
+    if (++aliases > configuration.getMaxAliases()) {
+      throw new RecognitionException(line, "The document has more than " + configuration.getMaxAliases() + " YAML aliases");
+    }
+    addValues(anchorSizes.getOrDefault(name, 1L));
+    pendingAnchor = null;
+  }
+
+  private boolean isAnchor(String name) {
+    if (anchorSizes.containsKey(name)) {
+      return true;
+    }
+    for (Anchor anchor : openAnchors) {
+      if (anchor.name.equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void value() {
+    addValues(1);
+    if (pendingAnchor != null) {
+      // the anchored node is this value alone
+      close(pendingAnchor);
+      pendingAnchor = null;
+    }
+  }
+
+  private void addValues(long count) {
+    values += count;
+    if (values > configuration.getMaxNodes()) {
+      throw new RecognitionException(line, "The document expands to more than " + configuration.getMaxNodes() + " values once its YAML aliases are resolved");
+    }
+  }
+
+  private void checkDepth() {
+    if (indents.size() + flowDepth > configuration.getMaxDepth()) {
+      throw new RecognitionException(line, "The document is nested deeper than " + configuration.getMaxDepth() + " levels");
+    }
+  }
+
+  private boolean isTokenStart() {
+    if (position == 0) {
+      return true;
+    }
+    char previous = text.charAt(position - 1);
+    return previous == ' ' || previous == '\t' || previous == '\n' || previous == '[' || previous == '{' || previous == ',';
+  }
+
+  private static boolean isSeparator(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == ',' || c == ':' || c == '-' || c == '?';
+  }
+
+  private boolean isNameStart(int index) {
+    return index < text.length() && !isNameEnd(text.charAt(index));
+  }
+
+  private String readName() {
+    int start = ++position;
+    while (position < text.length() && !isNameEnd(text.charAt(position))) {
+      ++position;
+    }
+    return text.subSequence(start, position).toString();
+  }
+
+  private static boolean isNameEnd(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == ',' || c == '[' || c == ']' || c == '{' || c == '}';
+  }
+
+  private void skipQuoted(char quote) {
+    ++position;
+    while (position < text.length()) {
+      char c = text.charAt(position++);
+      if (c == '\n') {
+        ++line;
+      } else if (c == '\\' && quote == '"') {
+        ++position;
+      } else if (c == quote) {
+        if (quote == '\'' && position < text.length() && text.charAt(position) == '\'') {
+          ++position;
+        } else {
+          return;
+        }
+      }
+    }
+  }
+
+  private void skipPlain() {
+    while (position < text.length()) {
+      char c = text.charAt(position);
+      if (c == '\n' || (flowDepth > 0 && (c == ',' || c == '[' || c == ']' || c == '{' || c == '}'))) {
+        return;
+      }
+      if ((c == ':' || c == '#') && position + 1 < text.length() && Character.isWhitespace(text.charAt(c == ':' ? position + 1 : position - 1))) {
+        return;
+      }
+      if (c == ':' && position + 1 == text.length()) {
+        return;
+      }
+      ++position;
+    }
+  }
+
+  private void skipLine() {
+    skipToEndOfLine();
+    if (position < text.length()) {
+      newLine();
+    }
+  }
+
+  private void skipToEndOfLine() {
+    while (position < text.length() && text.charAt(position) != '\n') {
+      ++position;
+    }
+  }
+
+  private static class Anchor {
+    private final String name;
+    private final long start;
+    private final int indent;
+    private final int flowDepth;
+    private boolean inFlow;
+
+    private Anchor(String name, long start, int indent, int flowDepth) {
+      this.name = name;
+      this.start = start;
+      this.indent = indent;
+      this.flowDepth = flowDepth;
+    }
+  }
+}
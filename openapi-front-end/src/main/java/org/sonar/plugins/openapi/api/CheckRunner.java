@@ -0,0 +1,63 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.util.List;
+
+/**
+ * Runs {@link ScopedCheck}s on files, keeping their scopes so that the checks themselves keep no state. A runner is
+ * only used by one thread, but the checks it runs can be shared by several runners.
+ */
+abstract class CheckRunner extends OpenApiVisitor {
+
+  /**
+   * Opens new scopes for a file, before it is walked.
+   * @param context the description of the file to scan
+   */
+  abstract void start(OpenApiVisitorContext context);
+
+  /**
+   * Closes the scopes of the file once it has been walked, keeping only the issues.
+   */
+  abstract void finish();
+
+  /**
+   * @param check one of the checks run by this runner
+   * @return the issues raised by {@code check} on the last file
+   */
+  abstract List<PreciseIssue> issues(ScopedCheck<?> check);
+
+  /**
+   * Runs the checks on a file, as {@link OpenApiCheck#scanFileForIssues(OpenApiVisitorContext)} would.
+   * @param context the description of the file to scan
+   * @param check one of the checks run by this runner
+   * @return the issues raised by {@code check}
+   */
+  final List<PreciseIssue> scanFileForIssues(OpenApiVisitorContext context, ScopedCheck<?> check) {
+    try {
+      start(context);
+      scanFile(context);
+    } finally {
+      finish();
+      setContext(null);
+    }
+    return issues(check);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * The analysis of one file by a {@link ScopedCheck}: it carries the file, the state of the check about the file, and
+ * the issues found so far. A new scope is created for each file, and only used by one thread.
+ * @param <S> the type of the state of the check
+ */
+public final class CheckScope<S> {
+  private final OpenApiVisitorContext context;
+  private final S state;
+  private final Set<PreciseIssue> issues = new LinkedHashSet<>();
+
+  CheckScope(OpenApiVisitorContext context, S state) {
+    this.context = context;
+    this.state = state;
+  }
+
+  public OpenApiVisitorContext context() {
+    return context;
+  }
+
+  /**
+   * @return the state created by {@link ScopedCheck#newState()} for this file
+   */
+  @CheckForNull
+  public S state() {
+    return state;
+  }
+
+  /**
+   * Record an issue on the supplied node's exact location.
+   * @param message Message to record
+   * @param node Location of the issue
+   * @return the created issue, for customization
+   */
+  public PreciseIssue addIssue(String message, JsonNode node) {
+    PreciseIssue newIssue = new PreciseIssue(IssueLocation.preciseLocation(message, node));
+    issues.add(newIssue);
+    return newIssue;
+  }
+
+  /**
+   * Record an issue on a given line.
+   * @param message Message to record
+   * @param lineNumber The line of the issue (starting at 1).
+   * @return the created issue, for customization
+   */
+  public PreciseIssue addLineIssue(String message, int lineNumber) {
+    PreciseIssue newIssue = new PreciseIssue(IssueLocation.atLineLevel(message, lineNumber));
+    issues.add(newIssue);
+    return newIssue;
+  }
+
+  List<PreciseIssue> issues() {
+    return Collections.unmodifiableList(new ArrayList<>(issues));
+  }
+}
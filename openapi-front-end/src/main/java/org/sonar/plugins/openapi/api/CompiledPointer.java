@@ -0,0 +1,94 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+import org.sonar.sslr.yaml.grammar.Utils;
+
+/**
+ * A JSON pointer parsed once into its segments, to look nodes up without parsing the pointer again on each lookup,
+ * as {@link JsonNode#at(String)} does. Constant pointers are best kept in static fields:
+ * <pre>
+ *   private static final CompiledPointer RESPONSES = CompiledPointer.compile("/responses");
+ *
+ *   JsonNode responses = RESPONSES.from(operation);
+ * </pre>
+ */
+public final class CompiledPointer {
+  private final JsonPointer pointer;
+
+  private CompiledPointer(JsonPointer pointer) {
+    this.pointer = pointer;
+  }
+
+  /**
+   * @param pointer a JSON pointer, such as {@code /components/schemas}
+   * @return the compiled pointer
+   * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+   */
+  public static CompiledPointer compile(String pointer) {
+    return new CompiledPointer(JsonPointer.compile(pointer));
+  }
+
+  /**
+   * @param key a property name or array index, unescaped
+   * @return the pointer to the {@code key} child of the node targeted by this pointer
+   */
+  public CompiledPointer append(String key) {
+    return new CompiledPointer(pointer.append(Utils.escape(key)));
+  }
+
+  /**
+   * @param pointer the pointer to append, relative to the node targeted by this pointer
+   * @return the pointer to the node targeted by {@code pointer} from the node targeted by this pointer
+   */
+  public CompiledPointer append(CompiledPointer pointer) {
+    return new CompiledPointer(this.pointer.append(pointer.pointer));
+  }
+
+  /**
+   * Same as {@link JsonNode#at(String)} with this pointer.
+   * @param node the node to start from
+   * @return the node targeted by this pointer from {@code node}, or a missing node
+   */
+  public JsonNode from(JsonNode node) {
+    return node.at(pointer);
+  }
+
+  public JsonPointer toJsonPointer() {
+    return pointer;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof CompiledPointer && pointer.equals(((CompiledPointer) o).pointer);
+  }
+
+  @Override
+  public int hashCode() {
+    return pointer.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return pointer.toString();
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+import org.sonar.sslr.yaml.grammar.YamlGrammar;
+
+/**
+ * Runs several visitors on a file while walking its tree only once.
+ * <p>
+ * Each node is only dispatched to the visitors subscribed to its type. Subscriptions are resolved once per node type,
+ * the first time that type is met, and kept in a lookup table: {@link OpenApiVisitor#isSubscribed(AstNodeType)} must
+ * therefore always give the same answer for a given type. Tokens are only dispatched to the visitors that override
+ * {@link OpenApiVisitor#visitToken(Token)}.
+ * <p>
+ * Every visitor receives the same sequence of calls as when it scans the file on its own, but the calls made to
+ * different visitors are interleaved. Visitors that override {@link OpenApiVisitor#scanFile(OpenApiVisitorContext)}
+ * or {@link OpenApiVisitor#scanNode(JsonNode)} control their own walk, and are run separately. The queries of all the
+ * {@link QueryCheck}s are evaluated together, by a single visitor.
+ * <p>
+ * The {@link ScopedCheck}s are run through scopes held by the composite visitor, so that the same check instances can
+ * be shared by composite visitors running on other threads.
+ * <p>
+ * The tree is walked with an explicit stack rather than by recursion, so the depth of the tree is not bounded by the
+ * size of the thread's stack.
+ * <p>
+ * Optionally, the free-form payloads of the contract (the values of {@code example}, {@code default} and {@code x-}
+ * extensions, and the values of examples) can be skimmed: their tokens are still dispatched, but none of their nodes.
+ * <p>
+ * Once a file is scanned, the visitors no longer hold its context, nor its tree.
+ */
+public class CompositeVisitor {
+  private static final OpenApiVisitor[] NO_VISITORS = new OpenApiVisitor[0];
+
+  private final List<OpenApiVisitor> allVisitors;
+  private final OpenApiVisitor[] walkedVisitors;
+  private final OpenApiVisitor[] tokenVisitors;
+  private final List<OpenApiVisitor> standaloneVisitors = new ArrayList<>();
+  private final Map<ScopedCheck<?>, CheckRunner> runners = new IdentityHashMap<>();
+  private final List<CheckRunner> distinctRunners = new ArrayList<>();
+  private final Map<AstNodeType, OpenApiVisitor[]> subscriptions = new HashMap<>();
+  private final Set<JsonNode> payloads = Collections.newSetFromMap(new IdentityHashMap<>());
+  private boolean skimPayloads;
+  private OpenApiVisitorContext context;
+
+  public CompositeVisitor(Collection<? extends OpenApiVisitor> visitors) {
+    this.allVisitors = new ArrayList<>(visitors);
+    List<OpenApiVisitor> walked = new ArrayList<>();
+    List<OpenApiVisitor> tokens = new ArrayList<>();
+    List<QueryCheck> queryChecks = new ArrayList<>();
+    for (OpenApiVisitor visitor : visitors) {
+      if (visitor instanceof QueryCheck) {
+        queryChecks.add((QueryCheck) visitor);
+      } else if (visitor instanceof ScopedCheck) {
+        CheckRunner runner = ((ScopedCheck<?>) visitor).newRunner();
+        runners.put((ScopedCheck<?>) visitor, runner);
+        distinctRunners.add(runner);
+        walked.add(runner);
+      } else if (overrides(visitor, "scanFile", OpenApiVisitorContext.class) || overrides(visitor, "scanNode", JsonNode.class)) {
+        standaloneVisitors.add(visitor);
+      } else {
+        walked.add(visitor);
+        if (overrides(visitor, "visitToken", Token.class)) {
+          tokens.add(visitor);
+        }
+      }
+    }
+    if (!queryChecks.isEmpty()) {
+      QueryEngine queryEngine = new QueryEngine(queryChecks);
+      queryChecks.forEach(check -> runners.put(check, queryEngine));
+      distinctRunners.add(queryEngine);
+      walked.add(queryEngine);
+    }
+    this.walkedVisitors = walked.toArray(NO_VISITORS);
+    this.tokenVisitors = tokens.toArray(NO_VISITORS);
+  }
+
+  /**
+   * Skims the free-form payloads instead of visiting them node by node. Payloads only hold sample or vendor-specific
+   * values, which the built-in visitors do not look into, and can make most of the tree on example-heavy contracts.
+   * Visitors subscribed to the plain YAML node types must not rely on seeing the nodes of payloads in this mode.
+   * @param skimPayloads {@code true} to only dispatch the tokens of payloads
+   */
+  public void setSkimPayloads(boolean skimPayloads) {
+    this.skimPayloads = skimPayloads;
+  }
+
+  /**
+   * Visits the file carried by the supplied {@code context} with all the visitors.
+   * @param context the description of the file to scan
+   */
+  public void scanFile(OpenApiVisitorContext context) {
+    try {
+      for (OpenApiVisitor visitor : standaloneVisitors) {
+        visitor.scanFile(context);
+      }
+      this.context = context;
+      for (OpenApiVisitor visitor : walkedVisitors) {
+        visitor.setContext(context);
+      }
+      for (CheckRunner runner : distinctRunners) {
+        runner.start(context);
+      }
+      JsonNode rootNode = context.rootTree();
+      if (rootNode != null) {
+        for (OpenApiVisitor visitor : walkedVisitors) {
+          visitor.visitFile(rootNode);
+        }
+        scanNode(rootNode);
+        for (OpenApiVisitor visitor : walkedVisitors) {
+          visitor.leaveFile(rootNode);
+        }
+      }
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Drops all references to the scanned file, so that its tree can be garbage collected while the next file is parsed.
+   */
+  private void release() {
+    this.context = null;
+    payloads.clear();
+    for (OpenApiVisitor visitor : allVisitors) {
+      if (!(visitor instanceof ScopedCheck)) {
+        visitor.setContext(null);
+      }
+    }
+    for (CheckRunner runner : distinctRunners) {
+      runner.finish();
+      runner.setContext(null);
+    }
+  }
+
+  /**
+   * Visits the file carried by the supplied {@code context} with all the visitors, and collects the issues raised by
+   * the checks among them, as {@link OpenApiCheck#scanFileForIssues(OpenApiVisitorContext)} would.
+   * @param context the description of the file to scan
+   * @return the issues raised by each check, in the order the checks were supplied
+   */
+  public Map<OpenApiCheck, List<PreciseIssue>> scanFileForIssues(OpenApiVisitorContext context) {
+    for (OpenApiVisitor visitor : allVisitors) {
+      if (visitor instanceof OpenApiCheck && !(visitor instanceof ScopedCheck)) {
+        ((OpenApiCheck) visitor).clearIssues();
+      }
+    }
+    scanFile(context);
+    Map<OpenApiCheck, List<PreciseIssue>> issues = new LinkedHashMap<>();
+    for (OpenApiVisitor visitor : allVisitors) {
+      if (visitor instanceof OpenApiCheck) {
+        OpenApiCheck check = (OpenApiCheck) visitor;
+        CheckRunner runner = runners.get(check);
+        issues.put(check, runner == null ? check.collectedIssues() : runner.issues((ScopedCheck<?>) check));
+      }
+    }
+    return issues;
+  }
+
+  private void scanNode(JsonNode root) {
+    NodeStack<boolean[]> stack = new NodeStack<>();
+    enter(root, stack);
+    while (!stack.isEmpty()) {
+      JsonNode child = stack.nextChild();
+      if (child != null) {
+        enter(child, stack);
+      } else {
+        leave(stack.node(), stack.state());
+        stack.pop();
+      }
+    }
+  }
+
+  private void enter(JsonNode node, NodeStack<boolean[]> stack) {
+    context.checkDeadline();
+    if (!payloads.isEmpty() && payloads.remove(node)) {
+      skim(node);
+      return;
+    }
+    OpenApiVisitor[] subscribed = subscriptionsFor(node.getType());
+    boolean[] visited = null;
+    for (int i = 0; i < subscribed.length; ++i) {
+      if (!subscribed[i].isSkipped(node)) {
+        if (visited == null) {
+          visited = new boolean[subscribed.length];
+        }
+        visited[i] = true;
+        subscribed[i].visitNode(node);
+      }
+    }
+
+    if (skimPayloads && node.isObject()) {
+      collectPayloads(node);
+    }
+    List<JsonNode> children = node.getJsonChildren();
+    if (children.isEmpty()) {
+      visitTokens(node);
+      leave(node, visited);
+    } else {
+      stack.push(node, children, visited);
+    }
+  }
+
+  private void leave(JsonNode node, @Nullable boolean[] visited) {
+    if (visited == null) {
+      return;
+    }
+    OpenApiVisitor[] subscribed = subscriptionsFor(node.getType());
+    for (int i = 0; i < subscribed.length; ++i) {
+      if (visited[i]) {
+        subscribed[i].leaveNode(node);
+      }
+    }
+  }
+
+  private void collectPayloads(JsonNode object) {
+    for (JsonNode property : object.properties()) {
+      JsonNode value = property.value();
+      if ((value.isObject() || value.isArray()) && value.getType() instanceof YamlGrammar && isPayload(object, property.key().stringValue())) {
+        payloads.add(value);
+      }
+    }
+  }
+
+  private static boolean isPayload(JsonNode object, String key) {
+    return key.startsWith("x-") || "example".equals(key) || "default".equals(key)
+      || object.getType() == OpenApi2Grammar.EXAMPLE
+      || (object.getType() == OpenApi3Grammar.EXAMPLE && "value".equals(key));
+  }
+
+  /**
+   * Dispatches the tokens of the leaves of a payload, in the same order as a full walk would.
+   */
+  private void skim(JsonNode payload) {
+    if (tokenVisitors.length == 0) {
+      return;
+    }
+    Deque<JsonNode> pending = new ArrayDeque<>();
+    pending.push(payload);
+    while (!pending.isEmpty()) {
+      context.checkDeadline();
+      JsonNode node = pending.pop();
+      List<JsonNode> children = node.getJsonChildren();
+      if (children.isEmpty()) {
+        visitTokens(node);
+      } else {
+        for (int i = children.size() - 1; i >= 0; --i) {
+          pending.push(children.get(i));
+        }
+      }
+    }
+  }
+
+  private void visitTokens(JsonNode node) {
+    for (OpenApiVisitor visitor : tokenVisitors) {
+      if (!visitor.isSkipped(node)) {
+        for (Token token : node.getTokens()) {
+          visitor.visitToken(token);
+        }
+      }
+    }
+  }
+
+  private OpenApiVisitor[] subscriptionsFor(AstNodeType type) {
+    return subscriptions.computeIfAbsent(type, t -> {
+      List<OpenApiVisitor> subscribed = new ArrayList<>();
+      for (OpenApiVisitor visitor : walkedVisitors) {
+        if (visitor.isSubscribed(t)) {
+          subscribed.add(visitor);
+        }
+      }
+      return subscribed.toArray(NO_VISITORS);
+    });
+  }
+
+  private static boolean overrides(OpenApiVisitor visitor, String methodName, Class<?>... parameterTypes) {
+    for (Class<?> type = visitor.getClass(); type != OpenApiVisitor.class && type != OpenApiCheck.class; type = type.getSuperclass()) {
+      try {
+        type.getDeclaredMethod(methodName, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // not declared at this level, look further up
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import javax.annotation.CheckForNull;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * Loads the documents that the {@code $ref} of a contract point to, when they are in other files.
+ */
+@FunctionalInterface
+public interface ExternalDocumentLoader {
+  /**
+   * @param location the location of the document, as written in the reference: relative to the referencing contract
+   * @return the root of the document, or {@code null} if it can't be loaded
+   */
+  @CheckForNull
+  JsonNode load(String location);
+}
@@ -54,6 +54,20 @@ public abstract class IssueLocation {
     return new PreciseIssueLocation(startNode, endNode, message);
   }
 
+  /**
+   * Creates a location from raw positions, as returned by {@link #startLine()}, {@link #startLineOffset()},
+   * {@link #endLine()} and {@link #endLineOffset()}. Allows to restore a location that was saved outside of the tree.
+   */
+  public static IssueLocation atPosition(@Nullable String message, int startLine, int startLineOffset, int endLine, int endLineOffset) {
+    if (startLine == UNDEFINED_LINE) {
+      return new FileLevelIssueLocation(message);
+    } else if (startLineOffset == UNDEFINED_OFFSET) {
+      return new LineLevelIssueLocation(message, startLine);
+    } else {
+      return new RangeIssueLocation(message, startLine, startLineOffset, endLine, endLineOffset);
+    }
+  }
+
   @CheckForNull
   public String message() {
     return message;
@@ -190,6 +204,43 @@ public abstract class IssueLocation {
   }
 
 
+  private static class RangeIssueLocation extends IssueLocation {
+
+    private final int startLine;
+    private final int startLineOffset;
+    private final int endLine;
+    private final int endLineOffset;
+
+    public RangeIssueLocation(@Nullable String message, int startLine, int startLineOffset, int endLine, int endLineOffset) {
+      super(message);
+      this.startLine = startLine;
+      this.startLineOffset = startLineOffset;
+      this.endLine = endLine;
+      this.endLineOffset = endLineOffset;
+    }
+
+    @Override
+    public int startLine() {
+      return startLine;
+    }
+
+    @Override
+    public int startLineOffset() {
+      return startLineOffset;
+    }
+
+    @Override
+    public int endLine() {
+      return endLine;
+    }
+
+    @Override
+    public int endLineOffset() {
+      return endLineOffset;
+    }
+  }
+
+
   private static class LineLevelIssueLocation extends IssueLocation {
 
     private final int lineNumber;
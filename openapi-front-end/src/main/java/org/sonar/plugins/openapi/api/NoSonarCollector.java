@@ -48,6 +48,7 @@ public class NoSonarCollector extends OpenApiVisitor {
   private final Set<String> globallyDisabled = new HashSet<>();
   private final Map<String, Set<String>> disabledByPointer = new HashMap<>();
   private final Map<String, Set<String>> enabledByPointer = new HashMap<>();
+  private final Set<String> mentionedRules = new HashSet<>();
 
   public boolean isEnabled(String pointer, String ruleId) {
     Set<String> enabled = enabledByPointer.getOrDefault(pointer, Collections.emptySet());
@@ -58,6 +59,14 @@ public class NoSonarCollector extends OpenApiVisitor {
     return !disabled.contains(ruleId) || enabled.contains(ruleId);
   }
 
+  /**
+   * Tells if a rule appears in any {@code x-nosonar}, {@code x-sonar-disable} or {@code x-sonar-enable} of the
+   * document. If not, the rule is enabled everywhere.
+   */
+  public boolean isMentioned(String ruleId) {
+    return mentionedRules.contains(ruleId);
+  }
+
   @Override
   protected boolean isSubscribed(AstNodeType nodeType) {
     return nodeType instanceof OpenApi2Grammar || nodeType instanceof OpenApi3Grammar || nodeType == BLOCK_MAPPING || nodeType == FLOW_MAPPING;
@@ -97,13 +106,14 @@ public class NoSonarCollector extends OpenApiVisitor {
     enabledByPointer.put(parent.getPointer(), enabled);
   }
 
-  private static Set<String> extractRuleIds(JsonNode node) {
+  private Set<String> extractRuleIds(JsonNode node) {
     Set<String> disabled;
     if (node.isArray()) {
       disabled = node.elements().stream().map(JsonNode::stringValue).collect(Collectors.toSet());
     } else {
       disabled = Collections.singleton(node.stringValue());
     }
+    mentionedRules.addAll(disabled);
     return disabled;
   }
 }
@@ -0,0 +1,112 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * The explicit stack of a tree walk, which keeps the walk independent of the depth of the tree.
+ * <p>
+ * Each frame holds a node whose children are being walked, the position of the next child to walk, and some state
+ * of the walker about the node. Frames are reused once popped, so a walk only allocates when the tree gets deeper.
+ * @param <S> the type of the state kept for each node
+ */
+final class NodeStack<S> {
+  private static final int INITIAL_DEPTH = 32;
+
+  private Frame<S>[] frames = newFrames(INITIAL_DEPTH);
+  private int size;
+
+  /**
+   * Pushes a node whose children are about to be walked.
+   * @param node the node
+   * @param children the children of the node
+   * @param state the state of the walker about the node, given back by {@link #state()}
+   */
+  void push(JsonNode node, List<JsonNode> children, @Nullable S state) {
+    if (size == frames.length) {
+      frames = Arrays.copyOf(frames, size * 2);
+    }
+    Frame<S> frame = frames[size];
+    if (frame == null) {
+      frame = new Frame<>();
+      frames[size] = frame;
+    }
+    frame.node = node;
+    frame.children = children;
+    frame.next = 0;
+    frame.state = state;
+    ++size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the next child of the node on top of the stack, or {@code null} once all its children have been returned
+   */
+  @CheckForNull
+  JsonNode nextChild() {
+    Frame<S> frame = frames[size - 1];
+    return frame.next < frame.children.size() ? frame.children.get(frame.next++) : null;
+  }
+
+  /**
+   * @return the node on top of the stack
+   */
+  JsonNode node() {
+    return frames[size - 1].node;
+  }
+
+  /**
+   * @return the state of the walker about the node on top of the stack
+   */
+  @CheckForNull
+  S state() {
+    return frames[size - 1].state;
+  }
+
+  /**
+   * Pops the node on top of the stack. The frame drops its references, so that the stack does not retain the tree.
+   */
+  void pop() {
+    Frame<S> frame = frames[--size];
+    frame.node = null;
+    frame.children = null;
+    frame.state = null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <S> Frame<S>[] newFrames(int length) {
+    return new Frame[length];
+  }
+
+  private static final class Frame<S> {
+    private JsonNode node;
+    private List<JsonNode> children;
+    private int next;
+    private S state;
+  }
+}
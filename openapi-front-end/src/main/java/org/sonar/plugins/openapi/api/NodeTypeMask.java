@@ -0,0 +1,63 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.AstNodeType;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+
+/**
+ * An immutable set of node types, optimized for membership tests on the OpenAPI grammar rules.
+ * Types of the OpenAPI v2 and v3 grammars are looked up by ordinal, other types fall back to a hash set.
+ */
+final class NodeTypeMask {
+  private final BitSet v2Types = new BitSet();
+  private final BitSet v3Types = new BitSet();
+  private final Set<AstNodeType> otherTypes;
+
+  NodeTypeMask(Collection<? extends AstNodeType> types) {
+    Set<AstNodeType> others = new HashSet<>();
+    for (AstNodeType type : types) {
+      if (type instanceof OpenApi2Grammar) {
+        v2Types.set(((OpenApi2Grammar) type).ordinal());
+      } else if (type instanceof OpenApi3Grammar) {
+        v3Types.set(((OpenApi3Grammar) type).ordinal());
+      } else {
+        others.add(type);
+      }
+    }
+    this.otherTypes = others.isEmpty() ? Collections.emptySet() : others;
+  }
+
+  boolean contains(AstNodeType type) {
+    if (type instanceof OpenApi2Grammar) {
+      return v2Types.get(((OpenApi2Grammar) type).ordinal());
+    } else if (type instanceof OpenApi3Grammar) {
+      return v3Types.get(((OpenApi3Grammar) type).ordinal());
+    } else {
+      return otherTypes.contains(type);
+    }
+  }
+}
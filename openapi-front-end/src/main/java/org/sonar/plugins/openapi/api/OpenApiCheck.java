@@ -29,6 +29,8 @@ import org.sonar.sslr.yaml.grammar.JsonNode;
  */
 public class OpenApiCheck extends OpenApiVisitor {
   private Set<PreciseIssue> issues = new LinkedHashSet<>();
+  private NodeTypeMask subscriptions;
+  private final String ruleId = ruleIdOf(getClass());
 
   /**
    * Scan the file provided in the context. If no file is provided, does nothing. This method clears the previous state
@@ -37,8 +39,16 @@ public class OpenApiCheck extends OpenApiVisitor {
    * @return the list of collected issues
    */
   public List<PreciseIssue> scanFileForIssues(OpenApiVisitorContext context) {
-    issues.clear();
+    clearIssues();
     scanFile(context);
+    return collectedIssues();
+  }
+
+  final void clearIssues() {
+    issues.clear();
+  }
+
+  final List<PreciseIssue> collectedIssues() {
     return Collections.unmodifiableList(new ArrayList<>(issues));
   }
 
@@ -46,7 +56,7 @@ public class OpenApiCheck extends OpenApiVisitor {
    * The kind of nodes the visitor is interested in. Override and return a non-empty set if you want to be notified
    * on {@link #visitNode(JsonNode)} and {@link #leaveNode(JsonNode)}.
    * <p>
-   * By default, returns an empty set.
+   * By default, returns an empty set. This method is only called once per check instance, the result is cached.
    * @return the list of node types to consider in the analysis
    */
   public Set<AstNodeType> subscribedKinds() {
@@ -55,26 +65,24 @@ public class OpenApiCheck extends OpenApiVisitor {
 
   @Override
   protected final boolean isSubscribed(AstNodeType nodeType) {
-    return subscribedKinds().contains(nodeType);
+    if (subscriptions == null) {
+      subscriptions = new NodeTypeMask(subscribedKinds());
+    }
+    return subscriptions.contains(nodeType);
   }
 
   @Override
   protected final boolean isSkipped(JsonNode node) {
-    Optional<String> ruleId = getRuleId();
-    if (ruleId.isPresent()) {
-      return !getContext().isEnabled(ruleId.get(), node);
-    } else {
-      return false;
-    }
+    return ruleId != null && !getContext().isEnabled(ruleId, node);
   }
 
   public final Optional<String> getRuleId() {
-    Rule rule = this.getClass().getAnnotation(Rule.class);
-    if (rule == null) {
-      return Optional.empty();
-    } else {
-      return Optional.of(rule.key());
-    }
+    return Optional.ofNullable(ruleId);
+  }
+
+  private static String ruleIdOf(Class<?> checkClass) {
+    Rule rule = checkClass.getAnnotation(Rule.class);
+    return rule == null ? null : rule.key();
   }
 
   /**
@@ -22,6 +22,7 @@ package org.sonar.plugins.openapi.api;
 import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Token;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
 /**
@@ -35,6 +36,10 @@ public class OpenApiVisitor {
     return context;
   }
 
+  final void setContext(@Nullable OpenApiVisitorContext context) {
+    this.context = context;
+  }
+
   /**
    * Called before visiting a node. Gives a chance to decide if this node type interests the visitor.
    * @param nodeType the type of node that will be visited
@@ -108,32 +113,51 @@ public class OpenApiVisitor {
   }
 
   /**
-   * Visit the AST node.
+   * Visit the AST node and its descendants. The tree is walked with an explicit stack rather than by recursion, so
+   * that deeply nested documents do not exhaust the thread's stack: this method is not called again for the
+   * descendants of the node.
    * @param node the node to visit
    */
   public void scanNode(JsonNode node) {
+    NodeStack<Boolean> stack = new NodeStack<>();
+    enter(node, stack);
+    while (!stack.isEmpty()) {
+      JsonNode child = stack.nextChild();
+      if (child != null) {
+        enter(child, stack);
+      } else {
+        if (stack.state() != null) {
+          leaveNode(stack.node());
+        }
+        stack.pop();
+      }
+    }
+  }
+
+  private void enter(JsonNode node, NodeStack<Boolean> stack) {
+    if (context != null) {
+      context.checkDeadline();
+    }
     boolean isSubscribedType = isSubscribed(node.getType());
     boolean isSkipped = isSkipped(node);
+    boolean isVisited = isSubscribedType && !isSkipped;
 
-    if (isSubscribedType && !isSkipped) {
+    if (isVisited) {
       visitNode(node);
     }
 
     List<JsonNode> children = node.getJsonChildren();
-    if (children.isEmpty() && !isSkipped) {
-      for (Token token : node.getTokens()) {
-        visitToken(token);
+    if (children.isEmpty()) {
+      if (!isSkipped) {
+        for (Token token : node.getTokens()) {
+          visitToken(token);
+        }
       }
-    } else {
-      for (JsonNode child : children) {
-        scanNode(child);
+      if (isVisited) {
+        leaveNode(node);
       }
-    }
-
-    if (isSubscribedType && !isSkipped) {
-      leaveNode(node);
+    } else {
+      stack.push(node, children, isVisited ? Boolean.TRUE : null);
     }
   }
-
-
 }
@@ -19,19 +19,35 @@
  */
 package org.sonar.plugins.openapi.api;
 
+import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.RecognitionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 import org.sonar.sslr.yaml.grammar.ValidationIssue;
 
 public class OpenApiVisitorContext {
+  // the clock is only read every so many nodes
+  private static final int DEADLINE_CHECK_INTERVAL = 256;
+
   private final JsonNode rootTree;
   private final OpenApiFile openApiFile;
   private final RecognitionException parsingException;
   private final NoSonarCollector collector = new NoSonarCollector();
   private final List<ValidationIssue> issues;
+  private SymbolTable symbolTable;
+  private Map<AstNodeType, List<JsonNode>> nodesByType;
+  private ExternalDocumentLoader externalDocumentLoader;
+  private boolean hasDeadline;
+  private long deadline;
+  private int nodesSinceDeadlineCheck;
 
   public OpenApiVisitorContext(JsonNode rootTree, List<ValidationIssue> issues, OpenApiFile openApiFile) {
     this(rootTree, openApiFile, issues, null);
@@ -46,7 +62,7 @@ public class OpenApiVisitorContext {
     this.openApiFile = openApiFile;
     this.issues = issues;
     this.parsingException = parsingException;
-    if (rootTree != null) {
+    if (rootTree != null && mayContainNoSonarMarkers(openApiFile)) {
       this.collector.scanFile(this);
     }
   }
@@ -67,8 +83,106 @@ public class OpenApiVisitorContext {
     return issues;
   }
 
+  /**
+   * @return the {@code $ref} references of the file, built on first call
+   * @throws IllegalStateException if the file could not be parsed
+   */
+  public SymbolTable symbolTable() {
+    if (symbolTable == null) {
+      if (rootTree == null) {
+        throw new IllegalStateException("No symbol table for a file that could not be parsed");
+      }
+      symbolTable = new SymbolTable(rootTree, this);
+    }
+    return symbolTable;
+  }
+
+  /**
+   * Lists the nodes of a type without walking the tree. The index of the nodes of all types is built on first call,
+   * with a single walk of the tree, and shared by all the visitors of the file.
+   * @param type the type of the nodes to list
+   * @return the nodes of the file with this type, in document order
+   * @throws IllegalStateException if the file could not be parsed
+   */
+  public List<JsonNode> nodesOfType(AstNodeType type) {
+    if (nodesByType == null) {
+      if (rootTree == null) {
+        throw new IllegalStateException("No nodes for a file that could not be parsed");
+      }
+      nodesByType = indexNodes(rootTree);
+    }
+    return nodesByType.getOrDefault(type, Collections.emptyList());
+  }
+
+  private static Map<AstNodeType, List<JsonNode>> indexNodes(JsonNode rootTree) {
+    Map<AstNodeType, List<JsonNode>> index = new HashMap<>();
+    Deque<JsonNode> pending = new ArrayDeque<>();
+    pending.push(rootTree);
+    while (!pending.isEmpty()) {
+      JsonNode node = pending.pop();
+      index.computeIfAbsent(node.getType(), t -> new ArrayList<>()).add(node);
+      List<JsonNode> children = node.getJsonChildren();
+      for (int i = children.size() - 1; i >= 0; --i) {
+        pending.push(children.get(i));
+      }
+    }
+    index.replaceAll((type, nodes) -> Collections.unmodifiableList(nodes));
+    return index;
+  }
+
+  /**
+   * Lets the symbol table resolve the references to other files. Without a loader, these references are resolved as
+   * by {@link JsonNode#resolve()}.
+   * @param externalDocumentLoader the loader of referenced documents, or {@code null}
+   */
+  public void setExternalDocumentLoader(@Nullable ExternalDocumentLoader externalDocumentLoader) {
+    this.externalDocumentLoader = externalDocumentLoader;
+  }
+
+  @CheckForNull
+  ExternalDocumentLoader externalDocumentLoader() {
+    return externalDocumentLoader;
+  }
+
+  /**
+   * Sets the time after which walking the tree fails with an {@link AnalysisTimeoutException}.
+   * @param deadlineNanos the deadline, as given by {@link System#nanoTime()}
+   */
+  public void setDeadline(long deadlineNanos) {
+    this.hasDeadline = true;
+    this.deadline = deadlineNanos;
+    this.nodesSinceDeadlineCheck = 0;
+  }
+
+  public void removeDeadline() {
+    this.hasDeadline = false;
+  }
+
+  /**
+   * Called by the visitors for each node they walk through. Cheap enough to be called that often: the clock is only
+   * read once in a while.
+   * @throws AnalysisTimeoutException if the deadline has passed
+   */
+  public void checkDeadline() {
+    if (hasDeadline && ++nodesSinceDeadlineCheck >= DEADLINE_CHECK_INTERVAL) {
+      nodesSinceDeadlineCheck = 0;
+      if (System.nanoTime() - deadline > 0) {
+        throw new AnalysisTimeoutException("Time budget exceeded while analyzing " + openApiFile.fileName());
+      }
+    }
+  }
+
   public boolean isEnabled(String ruleId, JsonNode node) {
-    return collector.isEnabled(node.getPointer(), ruleId);
+    return !collector.isMentioned(ruleId) || collector.isEnabled(node.getPointer(), ruleId);
+  }
+
+  /**
+   * Most files don't use any {@code x-nosonar}, {@code x-sonar-disable} or {@code x-sonar-enable}; looking for them in
+   * the raw content is much cheaper than walking the tree.
+   */
+  private static boolean mayContainNoSonarMarkers(OpenApiFile openApiFile) {
+    String content = openApiFile.content();
+    return content == null || content.contains("x-nosonar") || content.contains("x-sonar-");
   }
 
 }
@@ -0,0 +1,156 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.sonar.sslr.api.AstNodeType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * A declarative rule of a {@link QueryCheck}: from each node of some types, the subject, it selects the node at a
+ * pointer, tests it, and reports an issue when the test passes. For instance, to require a summary on operations:
+ * <pre>
+ *   Query.select("/summary", OpenApi2Grammar.OPERATION, OpenApi3Grammar.OPERATION)
+ *     .when(JsonNode::isMissing)
+ *     .reportOnSubject("Provide a summary for each operation.")
+ * </pre>
+ * The selected node is missing when the pointer does not lead anywhere from the subject.
+ */
+public final class Query {
+
+  /**
+   * A test that needs the file being analyzed, for instance to resolve references through its symbol table.
+   */
+  @FunctionalInterface
+  public interface Condition {
+    /**
+     * @param context the description of the file being analyzed
+     * @param subject the subject of the query
+     * @param selected the node selected from the subject
+     * @return {@code true} to report an issue
+     */
+    boolean test(OpenApiVisitorContext context, JsonNode subject, JsonNode selected);
+  }
+
+  private final Set<AstNodeType> types;
+  private final CompiledPointer pointer;
+  private final List<String> segments;
+  private Condition condition = (context, subject, selected) -> true;
+  private String message = "";
+  private boolean reportOnSubject;
+
+  private Query(Set<AstNodeType> types, CompiledPointer pointer, List<String> segments) {
+    this.types = types;
+    this.pointer = pointer;
+    this.segments = segments;
+  }
+
+  /**
+   * @param pointer the JSON pointer of the selected node from the subject, {@code ""} to select the subject itself
+   * @param types the types of the subjects
+   * @return a query that reports all the selected nodes, until given a test with {@code when}
+   * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+   */
+  public static Query select(String pointer, AstNodeType... types) {
+    CompiledPointer compiled = CompiledPointer.compile(pointer);
+    List<String> segments = new ArrayList<>();
+    for (JsonPointer p = compiled.toJsonPointer(); !p.matches(); p = p.tail()) {
+      segments.add(p.getMatchingProperty());
+    }
+    return new Query(Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(types))), compiled, Collections.unmodifiableList(segments));
+  }
+
+  /**
+   * @param predicate the test of the selected node
+   * @return this query
+   */
+  public Query when(Predicate<JsonNode> predicate) {
+    return when((subject, selected) -> predicate.test(selected));
+  }
+
+  /**
+   * @param predicate the test of the subject and of the selected node, in this order
+   * @return this query
+   */
+  public Query when(BiPredicate<JsonNode, JsonNode> predicate) {
+    return when((context, subject, selected) -> predicate.test(subject, selected));
+  }
+
+  /**
+   * @param condition the test of the subject and of the selected node, in the context of the analyzed file
+   * @return this query
+   */
+  public Query when(Condition condition) {
+    this.condition = condition;
+    return this;
+  }
+
+  /**
+   * Reports the issues on the key of the selected node.
+   * @param message the message of the issues
+   * @return this query
+   */
+  public Query report(String message) {
+    this.message = message;
+    this.reportOnSubject = false;
+    return this;
+  }
+
+  /**
+   * Reports the issues on the key of the subject, typically when the test is that the selected node is missing.
+   * @param message the message of the issues
+   * @return this query
+   */
+  public Query reportOnSubject(String message) {
+    this.message = message;
+    this.reportOnSubject = true;
+    return this;
+  }
+
+  Set<AstNodeType> types() {
+    return types;
+  }
+
+  /**
+   * @return the unescaped property names or array indexes leading from the subject to the selected node
+   */
+  List<String> segments() {
+    return segments;
+  }
+
+  void evaluate(CheckScope<?> scope, JsonNode subject, JsonNode selected) {
+    if (condition.test(scope.context(), subject, selected)) {
+      scope.addIssue(message, reportOnSubject ? subject.key() : selected.key());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return types + " " + pointer;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.AstNodeType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * Base class for the checks made of {@link Query queries} only: they declare what to look for, rather than visiting
+ * the tree themselves.
+ * <p>
+ * When several query checks run in the same {@link CompositeVisitor}, their queries are evaluated together by a
+ * single visitor, so that each additional query check costs little more than its own tests. For that reason, the
+ * visitor methods of query checks can't be overridden.
+ */
+public abstract class QueryCheck extends ScopedCheck<Void> {
+  private volatile List<Query> declaredQueries;
+
+  /**
+   * The queries of this check. This method is only called once per check instance, the result is cached.
+   * @return the queries of this check
+   */
+  protected abstract List<Query> queries();
+
+  final List<Query> declaredQueries() {
+    List<Query> queries = declaredQueries;
+    if (queries == null) {
+      queries = Collections.unmodifiableList(new ArrayList<>(queries()));
+      declaredQueries = queries;
+    }
+    return queries;
+  }
+
+  @Override
+  public final Set<AstNodeType> subscribedKinds() {
+    Set<AstNodeType> kinds = new HashSet<>();
+    for (Query query : declaredQueries()) {
+      kinds.addAll(query.types());
+    }
+    return kinds;
+  }
+
+  @Override
+  CheckRunner newRunner() {
+    return new QueryEngine(Collections.singletonList(this));
+  }
+
+  @Override
+  protected final void visitContext(CheckScope<Void> scope) {
+    // queries only look at their subjects
+  }
+
+  @Override
+  protected final void visitFile(CheckScope<Void> scope, JsonNode root) {
+    // queries only look at their subjects
+  }
+
+  @Override
+  protected final void visitNode(CheckScope<Void> scope, JsonNode node) {
+    // queries are evaluated by the query engine
+  }
+
+  @Override
+  protected final void leaveNode(CheckScope<Void> scope, JsonNode node) {
+    // queries only look at their subjects
+  }
+
+  @Override
+  protected final void leaveFile(CheckScope<Void> scope, JsonNode root) {
+    // queries only look at their subjects
+  }
+}
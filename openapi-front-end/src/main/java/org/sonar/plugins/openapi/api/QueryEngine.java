@@ -0,0 +1,146 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.sonar.sslr.api.AstNodeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+import org.sonar.sslr.yaml.grammar.Utils;
+
+/**
+ * Evaluates the queries of several {@link QueryCheck}s together. The queries are compiled into one trie per subject
+ * type, whose edges are the segments of their pointers: a subject is only dispatched once, whatever the number of
+ * queries on its type, and the queries whose pointers share a prefix share the lookups of that prefix.
+ */
+final class QueryEngine extends CheckRunner {
+  private final List<QueryCheck> checks;
+  private final String[] ruleIds;
+  private final List<CheckScope<Void>> scopes = new ArrayList<>();
+  private final List<List<PreciseIssue>> issues = new ArrayList<>();
+  private final Map<AstNodeType, Step> roots = new HashMap<>();
+  private final NodeTypeMask types;
+
+  QueryEngine(Collection<? extends QueryCheck> checks) {
+    this.checks = new ArrayList<>(checks);
+    this.ruleIds = new String[this.checks.size()];
+    for (int i = 0; i < this.checks.size(); ++i) {
+      QueryCheck check = this.checks.get(i);
+      ruleIds[i] = check.getRuleId().orElse(null);
+      scopes.add(null);
+      issues.add(Collections.emptyList());
+      for (Query query : check.declaredQueries()) {
+        for (AstNodeType type : query.types()) {
+          Step step = roots.computeIfAbsent(type, t -> new Step(null));
+          for (String segment : query.segments()) {
+            step = step.child(segment);
+          }
+          step.matches.add(new Match(i, query));
+        }
+      }
+    }
+    this.types = new NodeTypeMask(roots.keySet());
+  }
+
+  @Override
+  void start(OpenApiVisitorContext context) {
+    for (int i = 0; i < checks.size(); ++i) {
+      scopes.set(i, new CheckScope<>(context, null));
+      issues.set(i, Collections.emptyList());
+    }
+  }
+
+  @Override
+  void finish() {
+    for (int i = 0; i < checks.size(); ++i) {
+      CheckScope<Void> scope = scopes.get(i);
+      if (scope != null) {
+        issues.set(i, scope.issues());
+        scopes.set(i, null);
+      }
+    }
+  }
+
+  @Override
+  List<PreciseIssue> issues(ScopedCheck<?> check) {
+    return issues.get(checks.indexOf(check));
+  }
+
+  @Override
+  protected boolean isSubscribed(AstNodeType nodeType) {
+    return types.contains(nodeType);
+  }
+
+  @Override
+  protected void visitNode(JsonNode node) {
+    Step root = roots.get(node.getType());
+    if (root != null) {
+      root.evaluate(this, node, node);
+    }
+  }
+
+  /**
+   * Evaluates a query of a check, unless the check is disabled on the subject.
+   */
+  private void evaluate(int check, Query query, JsonNode subject, JsonNode selected) {
+    if (ruleIds[check] == null || getContext().isEnabled(ruleIds[check], subject)) {
+      query.evaluate(scopes.get(check), subject, selected);
+    }
+  }
+
+  private static final class Step {
+    private final JsonPointer segment;
+    private final Map<String, Step> children = new LinkedHashMap<>();
+    private final List<Match> matches = new ArrayList<>();
+
+    private Step(JsonPointer segment) {
+      this.segment = segment;
+    }
+
+    private Step child(String key) {
+      return children.computeIfAbsent(key, k -> new Step(Utils.escape(k)));
+    }
+
+    private void evaluate(QueryEngine engine, JsonNode subject, JsonNode node) {
+      for (Match match : matches) {
+        engine.evaluate(match.check, match.query, subject, node);
+      }
+      for (Step child : children.values()) {
+        child.evaluate(engine, subject, node.isMissing() ? node : node.at(child.segment));
+      }
+    }
+  }
+
+  private static final class Match {
+    private final int check;
+    private final Query query;
+
+    private Match(int check, Query query) {
+      this.check = check;
+      this.query = query;
+    }
+  }
+}
@@ -37,6 +37,8 @@ import static org.sonar.plugins.openapi.api.PathUtils.trimTrailingSlash;
  * A check on resource paths.
  */
 public abstract class ResourceCheck extends OpenApiCheck {
+  private static final CompiledPointer PATHS = CompiledPointer.compile("/paths");
+
   private Set<String> resourcePaths;
 
   @Override
@@ -46,7 +48,7 @@ public abstract class ResourceCheck extends OpenApiCheck {
 
   @Override
   protected void visitFile(JsonNode root) {
-    List<String> paths = root.at("/paths").propertyNames();
+    List<String> paths = PATHS.from(root).propertyNames();
     this.resourcePaths = extractResourcePaths(paths);
   }
 
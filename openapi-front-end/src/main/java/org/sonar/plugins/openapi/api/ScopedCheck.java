@@ -0,0 +1,136 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.Token;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * Base class for verification rules that keep no state of their own: whatever they need to remember about a file
+ * lives in the {@link CheckScope} given to each of their methods, which also collects their issues. One instance can
+ * therefore analyze several files at once, on different threads, provided its fields are not modified once its rule
+ * parameters are set.
+ * <p>
+ * The methods inherited from {@link OpenApiVisitor} are not called on such checks, and {@link #getContext()} is
+ * always {@code null}: use the methods taking a scope, and {@link CheckScope#context()}.
+ * @param <S> the type of the state of the check about a file, {@link Void} if it needs none
+ */
+public abstract class ScopedCheck<S> extends OpenApiCheck {
+
+  /**
+   * @return the state of the check about a new file, available through {@link CheckScope#state()}
+   */
+  @CheckForNull
+  protected S newState() {
+    return null;
+  }
+
+  /**
+   * Called once per file before anything else, even if the file could not be parsed.
+   * @param scope the analysis of the file
+   */
+  protected void visitContext(CheckScope<S> scope) {
+    // empty default implementation
+  }
+
+  /**
+   * Called before the tree of the file is walked.
+   * @param scope the analysis of the file
+   * @param root the tree of the file
+   */
+  protected void visitFile(CheckScope<S> scope, JsonNode root) {
+    // empty default implementation
+  }
+
+  /**
+   * Called when entering a node matching {@link #subscribedKinds()}, before visiting its children.
+   * @param scope the analysis of the file
+   * @param node the node to visit
+   */
+  protected void visitNode(CheckScope<S> scope, JsonNode node) {
+    // empty default implementation
+  }
+
+  /**
+   * Called when done visiting the children of a node matching {@link #subscribedKinds()}.
+   * @param scope the analysis of the file
+   * @param node the node that has been visited
+   */
+  protected void leaveNode(CheckScope<S> scope, JsonNode node) {
+    // empty default implementation
+  }
+
+  /**
+   * Called after the tree of the file has been walked.
+   * @param scope the analysis of the file
+   * @param root the tree of the file
+   */
+  protected void leaveFile(CheckScope<S> scope, JsonNode root) {
+    // empty default implementation
+  }
+
+  /**
+   * @return a new runner for this check, to be used by one thread
+   */
+  CheckRunner newRunner() {
+    return new ScopedVisitor<>(this);
+  }
+
+  @Override
+  public final List<PreciseIssue> scanFileForIssues(OpenApiVisitorContext context) {
+    return newRunner().scanFileForIssues(context, this);
+  }
+
+  /**
+   * Same as {@link #scanFileForIssues(OpenApiVisitorContext)}, the issues are only available from that method.
+   * @param context the description of the file to scan
+   */
+  @Override
+  public final void scanFile(OpenApiVisitorContext context) {
+    scanFileForIssues(context);
+  }
+
+  @Override
+  protected final void visitFile(JsonNode root) {
+    // the scope is given to visitFile(CheckScope, JsonNode)
+  }
+
+  @Override
+  protected final void leaveFile(JsonNode node) {
+    // the scope is given to leaveFile(CheckScope, JsonNode)
+  }
+
+  @Override
+  protected final void visitNode(JsonNode node) {
+    // the scope is given to visitNode(CheckScope, JsonNode)
+  }
+
+  @Override
+  protected final void leaveNode(JsonNode node) {
+    // the scope is given to leaveNode(CheckScope, JsonNode)
+  }
+
+  @Override
+  protected final void visitToken(Token token) {
+    // scoped checks do not visit tokens
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.AstNodeType;
+import java.util.Collections;
+import java.util.List;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * Runs a {@link ScopedCheck} by visiting the tree on its behalf, with a new scope for each file.
+ * @param <S> the type of the state of the check
+ */
+final class ScopedVisitor<S> extends CheckRunner {
+  private final ScopedCheck<S> check;
+  private final String ruleId;
+  private final NodeTypeMask subscriptions;
+  private CheckScope<S> scope;
+  private List<PreciseIssue> issues = Collections.emptyList();
+
+  ScopedVisitor(ScopedCheck<S> check) {
+    this.check = check;
+    this.ruleId = check.getRuleId().orElse(null);
+    this.subscriptions = new NodeTypeMask(check.subscribedKinds());
+  }
+
+  @Override
+  void start(OpenApiVisitorContext context) {
+    scope = new CheckScope<>(context, check.newState());
+    issues = Collections.emptyList();
+    check.visitContext(scope);
+  }
+
+  @Override
+  void finish() {
+    if (scope != null) {
+      issues = scope.issues();
+      scope = null;
+    }
+  }
+
+  @Override
+  List<PreciseIssue> issues(ScopedCheck<?> check) {
+    return issues;
+  }
+
+  @Override
+  protected boolean isSubscribed(AstNodeType nodeType) {
+    return subscriptions.contains(nodeType);
+  }
+
+  @Override
+  protected boolean isSkipped(JsonNode node) {
+    return ruleId != null && !getContext().isEnabled(ruleId, node);
+  }
+
+  @Override
+  protected void visitFile(JsonNode root) {
+    check.visitFile(scope, root);
+  }
+
+  @Override
+  protected void visitNode(JsonNode node) {
+    check.visitNode(scope, node);
+  }
+
+  @Override
+  protected void leaveNode(JsonNode node) {
+    check.leaveNode(scope, node);
+  }
+
+  @Override
+  protected void leaveFile(JsonNode root) {
+    check.leaveFile(scope, root);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+/**
+ * The {@code $ref} references of a file, and what they point to. Built once per file, the first time a visitor asks
+ * for it through {@link OpenApiVisitorContext#symbolTable()}, and shared by all the visitors.
+ * <p>
+ * References to other files are resolved in the documents given by the
+ * {@link OpenApiVisitorContext#setExternalDocumentLoader(ExternalDocumentLoader) external document loader}, if any.
+ */
+public class SymbolTable {
+  private static final CompiledPointer REF = CompiledPointer.compile("/$ref");
+
+  private final Map<JsonNode, String> references = new IdentityHashMap<>();
+  private final Map<String, JsonNode> targets = new HashMap<>();
+  private final Map<String, List<JsonNode>> referrers = new HashMap<>();
+  private final ExternalDocumentLoader externalDocumentLoader;
+
+  SymbolTable(JsonNode root, OpenApiVisitorContext context) {
+    this.externalDocumentLoader = context.externalDocumentLoader();
+    collect(root, context);
+  }
+
+  private void collect(JsonNode root, OpenApiVisitorContext context) {
+    Deque<JsonNode> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      context.checkDeadline();
+      JsonNode node = pending.pop();
+      if (node.isObject() && node.isRef()) {
+        String reference = REF.from(node).getTokenValue();
+        references.put(node, reference);
+        if (reference.startsWith("#")) {
+          referrers.computeIfAbsent(reference.substring(1), p -> new ArrayList<>()).add(node);
+        }
+      }
+      List<JsonNode> children = node.getJsonChildren();
+      for (int i = children.size() - 1; i >= 0; --i) {
+        pending.push(children.get(i));
+      }
+    }
+  }
+
+  /**
+   * Same as {@link JsonNode#resolve()}, but each distinct reference is only resolved once per file, and references to
+   * other files are resolved when an external document loader is set.
+   * @param node the node to resolve
+   * @return the node targeted by {@code node} if it is a reference, {@code node} otherwise
+   */
+  public JsonNode resolve(JsonNode node) {
+    if (!node.isRef()) {
+      return node;
+    }
+    String reference = references.get(node);
+    if (reference == null) {
+      return node.resolve();
+    }
+    return targets.computeIfAbsent(reference, r -> resolve(node, r));
+  }
+
+  private JsonNode resolve(JsonNode node, String reference) {
+    int hash = reference.indexOf('#');
+    if (externalDocumentLoader == null || hash == 0) {
+      return node.resolve();
+    }
+    JsonNode document = externalDocumentLoader.load(hash < 0 ? reference : reference.substring(0, hash));
+    if (document == null) {
+      return node.resolve();
+    }
+    return hash < 0 ? document : document.at(reference.substring(hash + 1));
+  }
+
+  /**
+   * @param pointer the JSON pointer of a node of this file, such as {@code /definitions/Pet}
+   * @return the {@code $ref} nodes referencing the node at {@code pointer}, in document order
+   */
+  public List<JsonNode> referrers(String pointer) {
+    return Collections.unmodifiableList(referrers.getOrDefault(pointer, Collections.emptyList()));
+  }
+
+  /**
+   * @param pointer the JSON pointer of a node of this file, such as {@code /definitions/Pet}
+   * @return {@code true} if a {@code $ref} of this file references the node at {@code pointer}
+   */
+  public boolean isReferenced(String pointer) {
+    return referrers.containsKey(pointer);
+  }
+
+  /**
+   * @return all the {@code $ref} nodes of this file
+   */
+  public Collection<JsonNode> references() {
+    return Collections.unmodifiableSet(references.keySet());
+  }
+}
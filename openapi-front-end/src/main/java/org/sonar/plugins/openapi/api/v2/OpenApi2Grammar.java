@@ -116,7 +116,7 @@ public enum OpenApi2Grammar implements GrammarRuleKey {
   }
 
   private static void buildSecurityDefinitions(YamlGrammarBuilder b) {
-    b.rule(SECURITY_SCHEME).is(b.firstOf(
+    b.rule(SECURITY_SCHEME).is(b.firstOf("type",
         BASIC_SECURITY_SCHEME,
         API_KEY_SECURITY_SCHEME,
         OAUTH2_SECURITY_SCHEME));
@@ -119,7 +119,7 @@ public enum OpenApi3Grammar implements GrammarRuleKey {
 
   private static void buildSecurityDefinitions(YamlGrammarBuilder b) {
     b.rule(SECURITY_SCHEME).is(
-      b.firstOf(HTTP_SECURITY_SCHEME, API_KEY_SECURITY_SCHEME, OAUTH2_SECURITY_SCHEME, OPENID_SECURITY_SCHEME));
+      b.firstOf("type", HTTP_SECURITY_SCHEME, API_KEY_SECURITY_SCHEME, OAUTH2_SECURITY_SCHEME, OPENID_SECURITY_SCHEME));
     b.rule(HTTP_SECURITY_SCHEME).is(b.object(
       b.discriminant("type", "http"),
       b.property("description", DESCRIPTION),
@@ -0,0 +1,70 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.sonar.openapi.OpenApiConfiguration;
+import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+import org.sonar.sslr.yaml.grammar.YamlParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpenApiParserTest {
+  private static final OpenApiConfiguration CONFIGURATION = new OpenApiConfiguration(StandardCharsets.UTF_8, true);
+  private static final String V3_CONTRACT = "openapi: 3.0.0\ninfo:\n  version: 1.0.0\n  title: test\npaths:\n  /pets: {}\n";
+
+  @Test
+  public void parsers_share_the_grammar_but_not_their_state() {
+    YamlParser first = OpenApiParser.createV3(CONFIGURATION);
+    YamlParser second = OpenApiParser.createV3(CONFIGURATION);
+    assertThat(first).isNotSameAs(second);
+
+    JsonNode root = first.parse(V3_CONTRACT);
+    assertThat(root.getType()).isEqualTo(OpenApi3Grammar.ROOT);
+    assertThat(second.parse(V3_CONTRACT).at("/paths/~1pets").getType()).isEqualTo(OpenApi3Grammar.PATH);
+
+    JsonNode v2Root = OpenApiParser.createV2(CONFIGURATION).parse("swagger: \"2.0\"\ninfo:\n  version: 1.0.0\n  title: test\npaths: {}\n");
+    assertThat(v2Root.getType()).isEqualTo(OpenApi2Grammar.ROOT);
+  }
+
+  @Test
+  public void parsers_can_be_created_concurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<JsonNode>> results = new ArrayList<>();
+      for (int i = 0; i < 8; ++i) {
+        results.add(executor.submit(() -> OpenApiParser.createV3(CONFIGURATION).parse(V3_CONTRACT)));
+      }
+      for (Future<JsonNode> result : results) {
+        assertThat(result.get().getType()).isEqualTo(OpenApi3Grammar.ROOT);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
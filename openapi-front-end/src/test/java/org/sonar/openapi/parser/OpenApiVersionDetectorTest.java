@@ -0,0 +1,50 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi.parser;
+
+import org.junit.Test;
+import org.sonar.openapi.parser.OpenApiVersionDetector.Version;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpenApiVersionDetectorTest {
+
+  @Test
+  public void detects_yaml_contracts() {
+    assertThat(OpenApiVersionDetector.detect("swagger: \"2.0\"\ninfo:\n  title: test")).contains(Version.V2);
+    assertThat(OpenApiVersionDetector.detect("# comment\n---\ninfo:\n  title: test\nopenapi: 3.0.1\n")).contains(Version.V3);
+    assertThat(OpenApiVersionDetector.detect("\uFEFF'openapi' : 3.0.0\r\n")).contains(Version.V3);
+  }
+
+  @Test
+  public void detects_json_contracts() {
+    assertThat(OpenApiVersionDetector.detect("{\"swagger\":\"2.0\"}")).contains(Version.V2);
+    assertThat(OpenApiVersionDetector.detect("{\n  \"info\": {\"openapi\": \"x\", \"swagger\": [1, 2]},\n  \"openapi\" : \"3.0.0\"")).contains(Version.V3);
+    assertThat(OpenApiVersionDetector.detect("{info: {title: test}, swagger: 2.0}")).contains(Version.V2);
+  }
+
+  @Test
+  public void ignores_nested_and_truncated_keys() {
+    assertThat(OpenApiVersionDetector.detect("info:\n  swagger: \"2.0\"\n  openapi: 3.0.0\n")).isEmpty();
+    assertThat(OpenApiVersionDetector.detect("info:\n  description: \"openapi: 3.0.0\"\nopen")).isEmpty();
+    assertThat(OpenApiVersionDetector.detect("{\"info\": {\"description\": \"a \\\" swagger: 2.0\"}, \"open")).isEmpty();
+    assertThat(OpenApiVersionDetector.detect("")).isEmpty();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi.parser;
+
+import com.sonar.sslr.api.RecognitionException;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.sonar.openapi.OpenApiConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class YamlLimitsTest {
+  private static final OpenApiConfiguration DEFAULTS = new OpenApiConfiguration(StandardCharsets.UTF_8, true);
+
+  @Test
+  public void accepts_regular_contracts() throws Exception {
+    for (String resource : new String[] {"/petstore.yaml", "/petstore.json"}) {
+      File file = new File(YamlLimitsTest.class.getResource(resource).getFile());
+      YamlLimits.check(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), DEFAULTS);
+    }
+  }
+
+  @Test
+  public void accepts_a_few_aliases() {
+    String yaml = "definitions:\n"
+      + "  base: &base\n"
+      + "    type: object\n"
+      + "    description: |\n"
+      + "      *not an alias* & not an anchor\n"
+      + "  pet:\n"
+      + "    allOf: [*base, *base]\n"
+      + "  tags: &tags [\"a&b\", 'c*d', e]\n"
+      + "  more: *tags\n";
+    YamlLimits.check(yaml, new OpenApiConfiguration(StandardCharsets.UTF_8, true, 4, 10, 100));
+  }
+
+  @Test
+  public void ignores_stars_in_plain_scalars() {
+    String yaml = "info:\n"
+      + "  description: The pets of the store\n"
+      + "    * cats\n"
+      + "    * dogs\n"
+      + "    *fish* are not listed\n"
+      + "    & neither are birds\n"
+      + "  title: &title Petstore\n"
+      + "  summary: *title\n";
+    YamlLimits.check(yaml, new OpenApiConfiguration(StandardCharsets.UTF_8, true, 1, 10, 100));
+    assertThatThrownBy(() -> YamlLimits.check(yaml + "  version: *title\n", new OpenApiConfiguration(StandardCharsets.UTF_8, true, 1, 10, 100)))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessageContaining("more than 1 YAML aliases");
+  }
+
+  @Test
+  public void rejects_billion_laughs() {
+    StringBuilder yaml = new StringBuilder("a: &a [lol, lol, lol, lol, lol, lol, lol, lol, lol, lol]\n");
+    for (char c = 'b'; c <= 'k'; ++c) {
+      char previous = (char) (c - 1);
+      yaml.append(c).append(": &").append(c).append(" [");
+      for (int i = 0; i < 10; ++i) {
+        yaml.append(i == 0 ? "" : ", ").append('*').append(previous);
+      }
+      yaml.append("]\n");
+    }
+
+    assertThatThrownBy(() -> YamlLimits.check(yaml, DEFAULTS))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessageContaining("expands to more than 10000000 values");
+  }
+
+  @Test
+  public void rejects_block_style_expansion() {
+    String yaml = "a: &a\n  - x\n  - y\nb: &b\n  - *a\n  - *a\nc:\n  - *b\n  - *b\n";
+    YamlLimits.check(yaml, new OpenApiConfiguration(StandardCharsets.UTF_8, true, 10, 10, 17));
+    assertThatThrownBy(() -> YamlLimits.check(yaml, new OpenApiConfiguration(StandardCharsets.UTF_8, true, 10, 10, 16)))
+      .isInstanceOf(RecognitionException.class);
+  }
+
+  @Test
+  public void rejects_too_many_aliases() {
+    assertThatThrownBy(() -> YamlLimits.check("a: &a x\nb: [*a, *a, *a]\n", new OpenApiConfiguration(StandardCharsets.UTF_8, true, 2, 10, 100)))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessageContaining("more than 2 YAML aliases");
+  }
+
+  @Test
+  public void rejects_deep_nesting() {
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 20; ++i) {
+      json.append("{\"a\": ");
+    }
+    assertThatThrownBy(() -> YamlLimits.check(json, new OpenApiConfiguration(StandardCharsets.UTF_8, true, 10, 10, 100)))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessageContaining("deeper than 10 levels");
+    StringBuilder yaml = new StringBuilder();
+    for (int i = 0; i < 20; ++i) {
+      yaml.append(new String(new char[i * 2]).replace('\0', ' ')).append("a:\n");
+    }
+    assertThatThrownBy(() -> YamlLimits.check(yaml, new OpenApiConfiguration(StandardCharsets.UTF_8, true, 10, 10, 100)))
+      .isInstanceOf(RecognitionException.class);
+  }
+}
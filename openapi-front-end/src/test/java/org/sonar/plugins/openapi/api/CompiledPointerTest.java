@@ -0,0 +1,52 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.io.File;
+import org.junit.Test;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompiledPointerTest {
+  private final JsonNode root = TestOpenApiVisitorRunner.createContext(
+    new File(CompiledPointerTest.class.getResource("/petstore.yaml").getFile())).rootTree();
+
+  @Test
+  public void finds_the_same_nodes_as_string_pointers() {
+    for (String pointer : new String[] {"", "/info", "/components/schemas/Pet", "/paths/~1pets/get/parameters/0", "/unknown/path"}) {
+      assertThat(CompiledPointer.compile(pointer).from(root)).isSameAs(root.at(pointer));
+    }
+  }
+
+  @Test
+  public void appends_escaped_keys() {
+    CompiledPointer paths = CompiledPointer.compile("/paths");
+
+    assertThat(paths.append("/pets")).hasToString("/paths/~1pets").isEqualTo(CompiledPointer.compile("/paths/~1pets"));
+    assertThat(paths.append("/pets").append(CompiledPointer.compile("/get")).from(root)).isSameAs(root.at("/paths/~1pets/get"));
+  }
+
+  @Test
+  public void rejects_invalid_pointers() {
+    assertThatThrownBy(() -> CompiledPointer.compile("paths")).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.google.common.collect.Sets;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Token;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.check.Rule;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+import org.sonar.sslr.yaml.grammar.YamlGrammar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompositeVisitorTest {
+  @org.junit.Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static class RecordingVisitor extends OpenApiVisitor {
+    final List<String> events = new ArrayList<>();
+    private final Set<AstNodeType> types;
+
+    RecordingVisitor(AstNodeType... types) {
+      this.types = Sets.newHashSet(types);
+    }
+    @Override
+    protected boolean isSubscribed(AstNodeType nodeType) {
+      return types.contains(nodeType);
+    }
+    @Override
+    protected void visitFile(JsonNode root) {
+      events.add("file");
+    }
+    @Override
+    protected void leaveFile(JsonNode node) {
+      events.add("/file");
+    }
+    @Override
+    protected void visitNode(JsonNode node) {
+      events.add(node.getPointer());
+    }
+    @Override
+    protected void leaveNode(JsonNode node) {
+      events.add("/" + node.getPointer());
+    }
+  }
+
+  private static class TokenVisitor extends RecordingVisitor {
+    TokenVisitor(AstNodeType... types) {
+      super(types);
+    }
+    @Override
+    protected void visitToken(Token token) {
+      events.add(token.getLine() + ":" + token.getColumn());
+    }
+  }
+
+  private static class StandaloneVisitor extends RecordingVisitor {
+    boolean scanned = false;
+    @Override
+    public void scanFile(OpenApiVisitorContext context) {
+      scanned = true;
+    }
+  }
+
+  /**
+   * Walks the tree by recursion, as the visitors did before their walk became iterative.
+   */
+  private static class RecursiveVisitor extends TokenVisitor {
+    RecursiveVisitor(AstNodeType... types) {
+      super(types);
+    }
+    @Override
+    public void scanNode(JsonNode node) {
+      boolean isSkipped = isSkipped(node);
+      boolean isVisited = isSubscribed(node.getType()) && !isSkipped;
+      if (isVisited) {
+        visitNode(node);
+      }
+      List<JsonNode> children = node.getJsonChildren();
+      if (children.isEmpty() && !isSkipped) {
+        for (Token token : node.getTokens()) {
+          visitToken(token);
+        }
+      }
+      for (JsonNode child : children) {
+        scanNode(child);
+      }
+      if (isVisited) {
+        leaveNode(node);
+      }
+    }
+  }
+
+  @Rule(key = "RuleId1")
+  private static class Rule1Check extends OpenApiCheck {
+    @Override
+    public Set<AstNodeType> subscribedKinds() {
+      return Sets.newHashSet(OpenApi3Grammar.OPERATION, OpenApi3Grammar.PARAMETER);
+    }
+    @Override
+    protected void visitNode(JsonNode node) {
+      addIssue("visited", node);
+    }
+  }
+
+  @Rule(key = "RuleId2")
+  private static class Rule2Check extends Rule1Check {
+  }
+
+  @Test
+  public void visitors_see_the_same_calls_as_when_run_alone() {
+    File file = file("/petstore.yaml");
+    RecordingVisitor alone1 = new RecordingVisitor(OpenApi3Grammar.OPERATION, OpenApi3Grammar.SCHEMA);
+    RecordingVisitor alone2 = new RecordingVisitor(OpenApi3Grammar.PATH);
+    TokenVisitor alone3 = new TokenVisitor();
+    TestOpenApiVisitorRunner.scanFile(file, alone1, alone2, alone3);
+
+    RecordingVisitor composed1 = new RecordingVisitor(OpenApi3Grammar.OPERATION, OpenApi3Grammar.SCHEMA);
+    RecordingVisitor composed2 = new RecordingVisitor(OpenApi3Grammar.PATH);
+    TokenVisitor composed3 = new TokenVisitor();
+    new CompositeVisitor(Arrays.asList(composed1, composed2, composed3)).scanFile(TestOpenApiVisitorRunner.createContext(file));
+
+    assertThat(composed1.events).isNotEmpty().isEqualTo(alone1.events);
+    assertThat(composed2.events).isNotEmpty().isEqualTo(alone2.events);
+    assertThat(composed3.events).isNotEmpty().isEqualTo(alone3.events);
+  }
+
+  @Test
+  public void visitors_release_the_file_once_scanned() {
+    StandaloneVisitor standalone = new StandaloneVisitor();
+    RecordingVisitor walked = new RecordingVisitor(OpenApi3Grammar.PATH);
+
+    new CompositeVisitor(Arrays.asList(standalone, walked)).scanFile(TestOpenApiVisitorRunner.createContext(file("/petstore.yaml")));
+
+    assertThat(walked.events).isNotEmpty();
+    assertThat(walked.getContext()).isNull();
+    assertThat(standalone.getContext()).isNull();
+  }
+
+  @Test
+  public void runs_visitors_with_their_own_walk_separately() {
+    StandaloneVisitor standalone = new StandaloneVisitor();
+    RecordingVisitor walked = new RecordingVisitor();
+
+    new CompositeVisitor(Arrays.asList(standalone, walked)).scanFile(TestOpenApiVisitorRunner.createContext(file("/petstore.yaml")));
+
+    assertThat(standalone.scanned).isTrue();
+    assertThat(standalone.events).isEmpty();
+    assertThat(walked.events).containsExactly("file", "/file");
+  }
+
+  @Test
+  public void collects_issues_per_check_and_honors_x_nosonar() {
+    Rule1Check rule1 = new Rule1Check();
+    Rule2Check rule2 = new Rule2Check();
+    CompositeVisitor visitor = new CompositeVisitor(Arrays.asList(rule1, rule2));
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file("/nosonar-test.yaml"));
+
+    Map<OpenApiCheck, List<PreciseIssue>> issues = visitor.scanFileForIssues(context);
+    assertThat(issues.keySet()).containsExactly(rule1, rule2);
+    assertThat(issues.get(rule1)).hasSize(1);
+    assertThat(issues.get(rule2)).isEmpty();
+
+    // issues are cleared between files
+    assertThat(visitor.scanFileForIssues(context).get(rule1)).hasSize(1);
+  }
+
+  @Test
+  public void skims_payloads_but_dispatches_their_tokens() throws Exception {
+    String contract = "openapi: 3.0.0\ninfo:\n  version: 1.0.0\n  title: test\n  x-payload:\n    key: value\npaths: {}\n"
+      + "components:\n  schemas:\n    Pet:\n      type: object\n      example:\n        name: rex\n        tags: [dog, small]\n";
+    File file = temporaryFolder.newFile("payloads.yaml");
+    Files.write(file.toPath(), contract.getBytes(StandardCharsets.UTF_8));
+
+    RecordingVisitor walkedNodes = new RecordingVisitor(OpenApi3Grammar.SCHEMA, YamlGrammar.BLOCK_MAPPING, YamlGrammar.FLOW_SEQUENCE);
+    TokenVisitor walkedTokens = new TokenVisitor();
+    new CompositeVisitor(Arrays.asList(walkedNodes, walkedTokens)).scanFile(TestOpenApiVisitorRunner.createContext(file));
+
+    RecordingVisitor skimmedNodes = new RecordingVisitor(OpenApi3Grammar.SCHEMA, YamlGrammar.BLOCK_MAPPING, YamlGrammar.FLOW_SEQUENCE);
+    TokenVisitor skimmedTokens = new TokenVisitor();
+    CompositeVisitor skimming = new CompositeVisitor(Arrays.asList(skimmedNodes, skimmedTokens));
+    skimming.setSkimPayloads(true);
+    skimming.scanFile(TestOpenApiVisitorRunner.createContext(file));
+
+    assertThat(walkedNodes.events).contains("/info/x-payload", "/components/schemas/Pet/example", "/components/schemas/Pet/example/tags");
+    assertThat(skimmedNodes.events).contains("/components/schemas/Pet")
+      .doesNotContain("/info/x-payload", "/components/schemas/Pet/example", "/components/schemas/Pet/example/tags");
+    assertThat(skimmedTokens.events).isNotEmpty().isEqualTo(walkedTokens.events);
+  }
+
+  @Test
+  public void iterative_walks_follow_the_recursive_order_on_deep_and_wide_trees() throws Exception {
+    StringBuilder deep = new StringBuilder("openapi: 3.0.0\ninfo: {version: 1.0.0, title: test}\npaths: {}\ncomponents:\n  schemas:\n    Deep: ");
+    for (int i = 0; i < 200; ++i) {
+      deep.append("{type: object, properties: {a: {allOf: [");
+    }
+    deep.append("{type: string}");
+    for (int i = 0; i < 200; ++i) {
+      deep.append("]}}}");
+    }
+    StringBuilder wide = new StringBuilder("openapi: 3.0.0\ninfo: {version: 1.0.0, title: test}\npaths: {}\ncomponents:\n  schemas:\n");
+    for (int i = 0; i < 2000; ++i) {
+      wide.append("    S").append(i).append(": {type: object, properties: {a: {type: string}, b: {type: integer}}}\n");
+    }
+
+    for (StringBuilder contract : Arrays.asList(deep, wide)) {
+      File file = temporaryFolder.newFile();
+      Files.write(file.toPath(), contract.toString().getBytes(StandardCharsets.UTF_8));
+      OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+
+      RecursiveVisitor recursive = new RecursiveVisitor(OpenApi3Grammar.SCHEMA, YamlGrammar.FLOW_SEQUENCE);
+      recursive.scanFile(context);
+      TokenVisitor alone = new TokenVisitor(OpenApi3Grammar.SCHEMA, YamlGrammar.FLOW_SEQUENCE);
+      alone.scanFile(context);
+      TokenVisitor composed = new TokenVisitor(OpenApi3Grammar.SCHEMA, YamlGrammar.FLOW_SEQUENCE);
+      new CompositeVisitor(Collections.singletonList(composed)).scanFile(context);
+
+      assertThat(alone.events).hasSize(recursive.events.size()).isEqualTo(recursive.events);
+      assertThat(composed.events).isEqualTo(recursive.events);
+    }
+  }
+
+  private static File file(String path) {
+    return new File(CompositeVisitorTest.class.getResource(path).getFile());
+  }
+
+  @Test
+  public void walks_stop_once_the_deadline_has_passed() throws Exception {
+    StringBuilder contract = new StringBuilder("openapi: 3.0.0\ninfo:\n  version: 1.0.0\n  title: test\npaths:\n");
+    for (int i = 0; i < 500; ++i) {
+      contract.append("  /path").append(i).append(": {}\n");
+    }
+    File file = temporaryFolder.newFile("large.yaml");
+    Files.write(file.toPath(), contract.toString().getBytes(StandardCharsets.UTF_8));
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+    RecordingVisitor visitor = new RecordingVisitor(OpenApi3Grammar.PATH);
+
+    context.setDeadline(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+    new CompositeVisitor(Collections.singletonList(visitor)).scanFile(context);
+    assertThat(visitor.events).contains("/paths/~1path499");
+
+    context.setDeadline(System.nanoTime() - 1);
+    assertThatThrownBy(() -> new CompositeVisitor(Collections.singletonList(visitor)).scanFile(context))
+      .isInstanceOf(AnalysisTimeoutException.class);
+    assertThatThrownBy(() -> visitor.scanFile(context))
+      .isInstanceOf(AnalysisTimeoutException.class);
+
+    context.removeDeadline();
+    visitor.scanFile(context);
+  }
+}
@@ -56,6 +56,21 @@ public class IssueLocationTest {
     assertThat(issueLocation.endLineOffset()).isEqualTo(IssueLocation.UNDEFINED_OFFSET);
   }
 
+  @Test
+  public void can_restore_issue_from_positions() {
+    IssueLocation range = IssueLocation.atPosition(MESSAGE, 6, 9, 7, 11);
+    assertThat(range.message()).isEqualTo(MESSAGE);
+    assertThat(range.startLine()).isEqualTo(6);
+    assertThat(range.startLineOffset()).isEqualTo(9);
+    assertThat(range.endLine()).isEqualTo(7);
+    assertThat(range.endLineOffset()).isEqualTo(11);
+
+    assertThat(IssueLocation.atPosition(MESSAGE, 42, IssueLocation.UNDEFINED_OFFSET, 42, IssueLocation.UNDEFINED_OFFSET))
+      .isEqualTo(IssueLocation.atLineLevel(MESSAGE, 42));
+    assertThat(IssueLocation.atPosition(null, IssueLocation.UNDEFINED_LINE, IssueLocation.UNDEFINED_OFFSET, IssueLocation.UNDEFINED_LINE, IssueLocation.UNDEFINED_OFFSET))
+      .isEqualTo(IssueLocation.atFileLevel(null));
+  }
+
   @Test
   public void can_create_single_node_issue() {
     JsonNode root = parser.parse("swagger: \"2.0\"\n" +
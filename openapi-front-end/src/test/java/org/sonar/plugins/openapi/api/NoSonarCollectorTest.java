@@ -45,4 +45,22 @@ public class NoSonarCollectorTest {
     assertThat(collector.isEnabled("/paths/~1pets/get", "RuleId3")).isTrue();
     assertThat(collector.isEnabled("/paths/~1pets/get/parameters/1", "RuleId3")).isFalse();
   }
-}
\ No newline at end of file
+
+  @Test
+  public void tracks_mentioned_rules() {
+    NoSonarCollector collector = new NoSonarCollector();
+
+    TestOpenApiVisitorRunner.scanFile(new File(NoSonarCollectorTest.class.getResource("/nosonar-test.yaml").getFile()), collector);
+
+    assertThat(collector.isMentioned("RuleId1")).isTrue();
+    assertThat(collector.isMentioned("RuleId3")).isTrue();
+    assertThat(collector.isMentioned("UnknownRule")).isFalse();
+  }
+
+  @Test
+  public void all_rules_enabled_without_markers() {
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(new File(NoSonarCollectorTest.class.getResource("/petstore.yaml").getFile()));
+
+    assertThat(context.isEnabled("RuleId1", context.rootTree())).isTrue();
+  }
+}
@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.Set;
 import org.junit.Test;
 import org.sonar.check.Rule;
+import org.sonar.plugins.openapi.api.v2.OpenApi2Grammar;
 import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
 import org.sonar.sslr.yaml.grammar.JsonNode;
 
@@ -75,4 +76,21 @@ public class OpenApiCheckTest {
     assertThat(rule2.visitedNodes).isEmpty();
     assertThat(rule3.visitedNodes).containsOnly("/paths/~1pets/get", "/paths/~1pets/get/parameters/0");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void computes_subscriptions_once() {
+    Rule1Check rule = new Rule1Check() {
+      int calls = 0;
+      @Override
+      public Set<AstNodeType> subscribedKinds() {
+        assertThat(++calls).isEqualTo(1);
+        return super.subscribedKinds();
+      }
+    };
+
+    assertThat(rule.isSubscribed(OpenApi3Grammar.OPERATION)).isTrue();
+    assertThat(rule.isSubscribed(OpenApi3Grammar.PARAMETER)).isTrue();
+    assertThat(rule.isSubscribed(OpenApi3Grammar.SCHEMA)).isFalse();
+    assertThat(rule.isSubscribed(OpenApi2Grammar.OPERATION)).isFalse();
+  }
+}
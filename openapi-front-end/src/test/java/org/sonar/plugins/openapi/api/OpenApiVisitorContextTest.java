@@ -0,0 +1,73 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.RecognitionException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OpenApiVisitorContextTest {
+  private final File file = new File(OpenApiVisitorContextTest.class.getResource("/petstore.yaml").getFile());
+
+  private static class NodeCollector extends OpenApiVisitor {
+    private final AstNodeType type;
+    private final List<JsonNode> nodes = new ArrayList<>();
+
+    NodeCollector(AstNodeType type) {
+      this.type = type;
+    }
+    @Override
+    protected boolean isSubscribed(AstNodeType nodeType) {
+      return nodeType == type;
+    }
+    @Override
+    protected void visitNode(JsonNode node) {
+      nodes.add(node);
+    }
+  }
+
+  @Test
+  public void lists_nodes_of_a_type_in_document_order() {
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+
+    for (AstNodeType type : new AstNodeType[] {OpenApi3Grammar.OPERATION, OpenApi3Grammar.SCHEMA, OpenApi3Grammar.PATH}) {
+      NodeCollector collector = new NodeCollector(type);
+      collector.scanFile(context);
+      assertThat(context.nodesOfType(type)).isNotEmpty().containsExactlyElementsOf(collector.nodes);
+    }
+    assertThat(context.nodesOfType(OpenApi3Grammar.CALLBACK)).isEmpty();
+  }
+
+  @Test
+  public void has_no_nodes_for_unparsed_files() {
+    OpenApiVisitorContext context = new OpenApiVisitorContext(TestOpenApiVisitorRunner.createContext(file).openApiFile(),
+      new RecognitionException(1, "error"));
+
+    assertThatThrownBy(() -> context.nodesOfType(OpenApi3Grammar.OPERATION)).isInstanceOf(IllegalStateException.class);
+  }
+}
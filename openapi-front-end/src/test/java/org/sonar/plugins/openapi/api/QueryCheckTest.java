@@ -0,0 +1,118 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.check.Rule;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCheckTest {
+  private final File file = new File(QueryCheckTest.class.getResource("/petstore.yaml").getFile());
+
+  @Rule(key = "OperationId")
+  private static class OperationIdCheck extends QueryCheck {
+    @Override
+    protected List<Query> queries() {
+      return Arrays.asList(
+        Query.select("/operationId", OpenApi3Grammar.OPERATION)
+          .when(id -> id.stringValue().startsWith("list"))
+          .report("list operation"),
+        Query.select("/deprecated", OpenApi3Grammar.OPERATION)
+          .when(JsonNode::isMissing)
+          .reportOnSubject("not deprecated"));
+    }
+  }
+
+  @Rule(key = "Responses")
+  private static class ResponsesCheck extends QueryCheck {
+    @Override
+    protected List<Query> queries() {
+      return Arrays.asList(
+        Query.select("/responses/default/description", OpenApi3Grammar.OPERATION)
+          .when(description -> !description.isMissing())
+          .report("default response"),
+        Query.select("/responses/200/headers/x-next", OpenApi3Grammar.OPERATION)
+          .when((operation, header) -> !header.isMissing() && !operation.get("parameters").isMissing())
+          .report("paged"),
+        Query.select("", OpenApi3Grammar.RESPONSES)
+          .when(responses -> responses.propertyNames().size() > 2)
+          .reportOnSubject("many responses"));
+    }
+  }
+
+  @Test
+  public void reports_issues_on_selected_nodes_or_subjects() {
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+
+    List<PreciseIssue> issues = new OperationIdCheck().scanFileForIssues(context);
+
+    assertThat(issues).extracting(issue -> issue.primaryLocation().message())
+      .containsOnly("list operation", "not deprecated")
+      .containsOnlyOnce("list operation");
+    assertThat(new ResponsesCheck().scanFileForIssues(context)).extracting(issue -> issue.primaryLocation().message())
+      .contains("default response")
+      .containsOnlyOnce("paged");
+  }
+
+  @Rule(key = "ResolvedResponses")
+  private static class ResolvedResponsesCheck extends QueryCheck {
+    @Override
+    protected List<Query> queries() {
+      return Collections.singletonList(
+        Query.select("/responses/200", OpenApi3Grammar.OPERATION)
+          .when((context, operation, response) -> !context.symbolTable().resolve(response).get("description").isMissing())
+          .report("described response"));
+    }
+  }
+
+  @Test
+  public void conditions_receive_the_context_of_the_file() {
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+    ResolvedResponsesCheck check = new ResolvedResponsesCheck();
+
+    List<PreciseIssue> alone = check.scanFileForIssues(context);
+    List<PreciseIssue> shared = new CompositeVisitor(Collections.singletonList(check)).scanFileForIssues(context).get(check);
+
+    assertThat(alone).isNotEmpty().hasSameSizeAs(shared).containsOnlyElementsOf(shared);
+  }
+
+  @Test
+  public void query_checks_give_the_same_issues_in_a_shared_walk() {
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+    List<PreciseIssue> operationIdAlone = new OperationIdCheck().scanFileForIssues(context);
+    List<PreciseIssue> responsesAlone = new ResponsesCheck().scanFileForIssues(context);
+
+    OperationIdCheck operationId = new OperationIdCheck();
+    ResponsesCheck responses = new ResponsesCheck();
+    Map<OpenApiCheck, List<PreciseIssue>> issues = new CompositeVisitor(Arrays.asList(operationId, responses)).scanFileForIssues(context);
+
+    assertThat(issues.get(operationId)).isNotEmpty().hasSameSizeAs(operationIdAlone).containsOnlyElementsOf(operationIdAlone);
+    assertThat(issues.get(responses)).isNotEmpty().hasSameSizeAs(responsesAlone).containsOnlyElementsOf(responsesAlone);
+    assertThat(operationId.getContext()).isNull();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import com.sonar.sslr.api.AstNodeType;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.sonar.check.Rule;
+import org.sonar.plugins.openapi.api.v3.OpenApi3Grammar;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScopedCheckTest {
+  private final File file = new File(ScopedCheckTest.class.getResource("/petstore.yaml").getFile());
+
+  @Rule(key = "CountedOperations")
+  private static class CountedOperationsCheck extends ScopedCheck<List<JsonNode>> {
+    @Override
+    public Set<AstNodeType> subscribedKinds() {
+      return Collections.singleton(OpenApi3Grammar.OPERATION);
+    }
+
+    @Override
+    protected List<JsonNode> newState() {
+      return new ArrayList<>();
+    }
+
+    @Override
+    protected void visitNode(CheckScope<List<JsonNode>> scope, JsonNode node) {
+      scope.state().add(node);
+    }
+
+    @Override
+    protected void leaveFile(CheckScope<List<JsonNode>> scope, JsonNode root) {
+      scope.addIssue(scope.state().size() + " operations", root);
+    }
+  }
+
+  @Test
+  public void state_is_kept_per_file() {
+    CountedOperationsCheck check = new CountedOperationsCheck();
+
+    List<PreciseIssue> first = check.scanFileForIssues(TestOpenApiVisitorRunner.createContext(file));
+    List<PreciseIssue> second = check.scanFileForIssues(TestOpenApiVisitorRunner.createContext(file));
+
+    assertThat(first).hasSize(1);
+    assertThat(first.get(0).primaryLocation().message()).isNotEqualTo("0 operations");
+    assertThat(second).extracting(issue -> issue.primaryLocation().message())
+      .containsExactly(first.get(0).primaryLocation().message());
+    assertThat(check.collectedIssues()).isEmpty();
+  }
+
+  @Test
+  public void scoped_checks_give_the_same_issues_in_a_shared_walk() {
+    OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(file);
+    CountedOperationsCheck check = new CountedOperationsCheck();
+    List<PreciseIssue> alone = check.scanFileForIssues(context);
+
+    CompositeVisitor first = new CompositeVisitor(Collections.singletonList(check));
+    CompositeVisitor second = new CompositeVisitor(Collections.singletonList(check));
+    Map<OpenApiCheck, List<PreciseIssue>> firstIssues = first.scanFileForIssues(context);
+    Map<OpenApiCheck, List<PreciseIssue>> secondIssues = second.scanFileForIssues(context);
+
+    assertThat(firstIssues.get(check)).hasSameSizeAs(alone).containsOnlyElementsOf(alone);
+    assertThat(secondIssues.get(check)).hasSameSizeAs(alone).containsOnlyElementsOf(alone);
+    assertThat(check.getContext()).isNull();
+  }
+
+  @Test
+  public void one_instance_scans_files_concurrently() throws Exception {
+    CountedOperationsCheck check = new CountedOperationsCheck();
+    List<PreciseIssue> expected = check.scanFileForIssues(TestOpenApiVisitorRunner.createContext(file));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Map<OpenApiCheck, List<PreciseIssue>>>> results = new ArrayList<>();
+      for (int i = 0; i < 16; ++i) {
+        CompositeVisitor visitor = new CompositeVisitor(Collections.singletonList(check));
+        results.add(executor.submit(() -> visitor.scanFileForIssues(TestOpenApiVisitorRunner.createContext(file))));
+      }
+      for (Future<Map<OpenApiCheck, List<PreciseIssue>>> result : results) {
+        assertThat(result.get().get(check)).hasSameSizeAs(expected).containsOnlyElementsOf(expected);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SymbolTableTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private final OpenApiVisitorContext context = TestOpenApiVisitorRunner.createContext(
+    new File(SymbolTableTest.class.getResource("/petstore.yaml").getFile()));
+
+  @Test
+  public void is_built_once_per_file() {
+    assertThat(context.symbolTable()).isSameAs(context.symbolTable());
+  }
+
+  @Test
+  public void indexes_referrers_by_pointer() {
+    SymbolTable symbols = context.symbolTable();
+
+    assertThat(symbols.references()).hasSize(6);
+    assertThat(symbols.referrers("/components/schemas/Error")).hasSize(3);
+    assertThat(symbols.isReferenced("/components/schemas/Pet")).isTrue();
+    assertThat(symbols.isReferenced("/components/schemas/Unknown")).isFalse();
+    assertThat(symbols.referrers("/components/schemas/Unknown")).isEmpty();
+  }
+
+  @Test
+  public void resolves_like_json_nodes() {
+    SymbolTable symbols = context.symbolTable();
+    JsonNode pet = context.rootTree().at("/components/schemas/Pet");
+
+    for (JsonNode reference : symbols.references()) {
+      assertThat(symbols.resolve(reference)).isSameAs(reference.resolve());
+    }
+    assertThat(symbols.resolve(symbols.referrers("/components/schemas/Pet").get(0))).isSameAs(pet);
+    assertThat(symbols.resolve(pet)).isSameAs(pet);
+  }
+
+  @Test
+  public void collects_references_of_deep_trees_in_document_order() throws Exception {
+    StringBuilder contract = new StringBuilder("openapi: 3.0.0\ninfo: {version: 1.0.0, title: test}\npaths: {}\ncomponents:\n  schemas:\n"
+      + "    Leaf: {type: string}\n    Deep: ");
+    int depth = 500;
+    for (int i = 0; i < depth; ++i) {
+      contract.append("{allOf: [{$ref: '#/components/schemas/Leaf'}, ");
+    }
+    contract.append("{type: string}");
+    for (int i = 0; i < depth; ++i) {
+      contract.append("]}");
+    }
+    File file = temporaryFolder.newFile();
+    Files.write(file.toPath(), contract.toString().getBytes(StandardCharsets.UTF_8));
+
+    SymbolTable symbols = TestOpenApiVisitorRunner.createContext(file).symbolTable();
+
+    List<JsonNode> referrers = symbols.referrers("/components/schemas/Leaf");
+    assertThat(symbols.references()).hasSize(depth);
+    assertThat(referrers).hasSize(depth);
+    for (int i = 1; i < depth; ++i) {
+      assertThat(referrers.get(i).getToken().getColumn()).isGreaterThan(referrers.get(i - 1).getToken().getColumn());
+    }
+  }
+}
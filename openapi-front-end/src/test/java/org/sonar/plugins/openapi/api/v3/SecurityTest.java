@@ -0,0 +1,52 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.openapi.api.v3;
+
+import org.junit.Test;
+import org.sonar.openapi.BaseNodeTest;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+
+public class SecurityTest extends BaseNodeTest<OpenApi3Grammar> {
+  @Test
+  public void can_parse_http() {
+    JsonNode model = parseResource(OpenApi3Grammar.SECURITY_SCHEME, "/models/v3/security/http.yaml");
+
+    assertEquals("http", model, "/type");
+    assertEquals("bearer", model, "/scheme");
+    assertEquals("JWT", model, "/bearerFormat");
+  }
+
+  @Test
+  public void can_parse_api_key() {
+    JsonNode model = parseResource(OpenApi3Grammar.SECURITY_SCHEME, "/models/v3/security/api-key.yaml");
+
+    assertEquals("apiKey", model, "/type");
+    assertEquals("api_key", model, "/name");
+    assertEquals("cookie", model, "/in");
+  }
+
+  @Test
+  public void can_parse_open_id_connect() {
+    JsonNode model = parseResource(OpenApi3Grammar.SECURITY_SCHEME, "/models/v3/security/openid.yaml");
+
+    assertEquals("openIdConnect", model, "/type");
+    assertEquals("https://example.com/.well-known/openid-configuration", model, "/openIdConnectUrl");
+  }
+}
@@ -0,0 +1,471 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.check.RuleProperty;
+import org.sonar.openapi.metrics.OpenApiMetrics;
+import org.sonar.plugins.openapi.api.IssueLocation;
+import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.PreciseIssue;
+import org.sonar.plugins.openapi.cpd.OpenApiCpdAnalyzer.CpdTokens;
+import org.sonar.sslr.yaml.grammar.YamlParser;
+
+/**
+ * On-disk cache of file analyses, so that unchanged contracts are neither parsed nor checked again.
+ * <p>
+ * Entries are keyed by a hash of the file content and of everything else the result depends on: the active rules
+ * and their parameters, the classes implementing them, the analyzer and the grammar. Changing any of these only
+ * leads to cache misses, stale entries are never read. The cache never fails the analysis: an entry that cannot be
+ * read or written is treated as a miss.
+ * <p>
+ * Reading or writing an entry updates its modification time, so that the entries that were not used for the longest
+ * time, such as the ones of former contents or configurations, are the first to be evicted once the cache is full.
+ * <p>
+ * An instance can be used from several threads.
+ */
+public class AnalysisCache {
+  private static final Logger LOG = Loggers.get(AnalysisCache.class);
+  private static final int FORMAT_VERSION = 1;
+  private static final String ENTRY_SUFFIX = ".bin";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  // temporary files may be written by a concurrent analysis
+  private static final long TEMPORARY_FILE_MAX_AGE = TimeUnit.HOURS.toMillis(1);
+  private static final Map<String, Metric<Integer>> METRICS = new HashMap<>();
+
+  static {
+    List<Metric<Integer>> metrics = new ArrayList<>();
+    metrics.add(CoreMetrics.NCLOC);
+    metrics.add(CoreMetrics.COMMENT_LINES);
+    metrics.add(CoreMetrics.COMPLEXITY);
+    metrics.add(OpenApiMetrics.OPERATIONS_COUNT);
+    metrics.add(OpenApiMetrics.PATHS_COUNT);
+    metrics.add(OpenApiMetrics.SCHEMAS_COUNT);
+    metrics.forEach(metric -> METRICS.put(metric.key(), metric));
+  }
+
+  private final Path directory;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  public AnalysisCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Computes the part of the cache keys that doesn't depend on the file content.
+   * @param checks the checks that will be run
+   * @param isV2 whether files are analyzed as OpenAPI v2 contracts
+   * @param configuration the encoding of the files and the limits of the parser
+   * @param skimPayloads whether payloads are skimmed
+   * @return a digest of the analysis configuration
+   */
+  static byte[] fingerprint(OpenApiChecks checks, boolean isV2, OpenApiConfiguration configuration, boolean skimPayloads) {
+    MessageDigest digest = sha256();
+    update(digest, "format:" + FORMAT_VERSION);
+    update(digest, "v2:" + isV2);
+    update(digest, "charset:" + configuration.getCharset().name());
+    update(digest, "strict:" + configuration.isStrict());
+    update(digest, "limits:" + configuration.getMaxAliases() + "," + configuration.getMaxDepth() + "," + configuration.getMaxNodes());
+    update(digest, "skimPayloads:" + skimPayloads);
+    // the plugin jar embeds the front-end, the checks and the grammar
+    update(digest, "analyzer:" + codeSourceOf(OpenApiAnalyzer.class));
+    update(digest, "grammar:" + codeSourceOf(YamlParser.class));
+    for (OpenApiCheck check : checks.all()) {
+      update(digest, "rule:" + checks.ruleKeyFor(check));
+      update(digest, "class:" + check.getClass().getName() + "@" + codeSourceOf(check.getClass()));
+      for (Class<?> type = check.getClass(); type != null; type = type.getSuperclass()) {
+        for (Field field : type.getDeclaredFields()) {
+          if (field.isAnnotationPresent(RuleProperty.class)) {
+            update(digest, "param:" + field.getName() + "=" + readField(check, field));
+          }
+        }
+      }
+    }
+    return digest.digest();
+  }
+
+  @CheckForNull
+  FileAnalysis load(byte[] fingerprint, ByteBuffer content) {
+    lookups.incrementAndGet();
+    Path entry = entryFor(fingerprint, content);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+      FileAnalysis analysis = read(in);
+      hits.incrementAndGet();
+      touch(entry);
+      return analysis;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Ignoring unreadable analysis cache entry " + entry, e);
+      return null;
+    }
+  }
+
+  void store(byte[] fingerprint, ByteBuffer content, FileAnalysis analysis) {
+    Path entry = entryFor(fingerprint, content);
+    try {
+      Files.createDirectories(entry.getParent());
+      Path temporary = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), TEMPORARY_SUFFIX);
+      try {
+        try (OutputStream stream = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+          write(analysis, out);
+        }
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to write analysis cache entry " + entry, e);
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until the cache fits in the given size, along with the temporary files
+   * left behind by interrupted analyses.
+   * @param maxSize the maximum size of the cache in bytes
+   */
+  public void evict(long maxSize) {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    List<CachedFile> entries = new ArrayList<>();
+    long totalSize = 0;
+    long now = System.currentTimeMillis();
+    try (Stream<Path> files = Files.walk(directory, 2)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(ENTRY_SUFFIX) || name.endsWith(TEMPORARY_SUFFIX)) {
+          BasicFileAttributes attributes = attributesOf(file);
+          if (attributes == null) {
+            continue;
+          }
+          long lastModified = attributes.lastModifiedTime().toMillis();
+          if (name.endsWith(TEMPORARY_SUFFIX)) {
+            if (now - lastModified > TEMPORARY_FILE_MAX_AGE) {
+              delete(file);
+            }
+          } else {
+            entries.add(new CachedFile(file, attributes.size(), lastModified));
+            totalSize += attributes.size();
+          }
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to list the analysis cache entries in " + directory, e);
+      return;
+    }
+    if (totalSize <= maxSize) {
+      return;
+    }
+    entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+    int evicted = 0;
+    for (CachedFile entry : entries) {
+      if (totalSize <= maxSize) {
+        break;
+      }
+      if (delete(entry.path)) {
+        totalSize -= entry.size;
+        ++evicted;
+      }
+    }
+    LOG.info("OpenAPI analysis cache: {} least recently used entries evicted", evicted);
+  }
+
+  // the file may have been deleted by a concurrent analysis
+  @CheckForNull
+  private static BasicFileAttributes attributesOf(Path file) {
+    try {
+      return Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void touch(Path entry) {
+    try {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      LOG.debug("Unable to update the modification time of " + entry, e);
+    }
+  }
+
+  private static boolean delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+      return true;
+    } catch (IOException e) {
+      LOG.debug("Unable to delete " + file, e);
+      return false;
+    }
+  }
+
+  public int hits() {
+    return hits.get();
+  }
+
+  public int lookups() {
+    return lookups.get();
+  }
+
+  public void logStatistics() {
+    int total = lookups();
+    if (total > 0) {
+      LOG.info("OpenAPI analysis cache: {}/{} files reused ({}%)", hits(), total, hits() * 100 / total);
+    }
+  }
+
+  private Path entryFor(byte[] fingerprint, ByteBuffer content) {
+    MessageDigest digest = sha256();
+    digest.update(fingerprint);
+    digest.update(content.duplicate());
+    String key = toHex(digest.digest());
+    return directory.resolve(key.substring(0, 2)).resolve(key + ENTRY_SUFFIX);
+  }
+
+  private static void write(FileAnalysis analysis, DataOutputStream out) throws IOException {
+    out.writeInt(FORMAT_VERSION);
+    out.writeBoolean(analysis.isParsed());
+    out.writeInt(analysis.measures().size());
+    for (Map.Entry<Metric<Integer>, Integer> measure : analysis.measures().entrySet()) {
+      writeString(out, measure.getKey().key());
+      out.writeInt(measure.getValue());
+    }
+    writeLines(out, analysis.linesOfCode());
+    writeLines(out, analysis.linesOfComments());
+    writeLines(out, analysis.linesWithNoSonar());
+    CpdTokens cpdTokens = analysis.cpdTokens();
+    out.writeInt(cpdTokens.size());
+    for (int i = 0; i < cpdTokens.size(); ++i) {
+      out.writeInt(cpdTokens.startLine(i));
+      out.writeInt(cpdTokens.startLineOffset(i));
+      out.writeInt(cpdTokens.endLine(i));
+      out.writeInt(cpdTokens.endLineOffset(i));
+      writeString(out, cpdTokens.image(i));
+    }
+    out.writeInt(analysis.errors().size());
+    for (FileAnalysis.AnalysisError error : analysis.errors()) {
+      out.writeInt(error.line());
+      out.writeInt(error.column());
+      writeString(out, error.message());
+    }
+    out.writeInt(analysis.issues().size());
+    for (Map.Entry<RuleKey, List<PreciseIssue>> ruleIssues : analysis.issues().entrySet()) {
+      writeString(out, ruleIssues.getKey().toString());
+      out.writeInt(ruleIssues.getValue().size());
+      for (PreciseIssue issue : ruleIssues.getValue()) {
+        Integer cost = issue.cost();
+        out.writeBoolean(cost != null);
+        if (cost != null) {
+          out.writeInt(cost);
+        }
+        writeLocation(out, issue.primaryLocation());
+        out.writeInt(issue.secondaryLocations().size());
+        for (IssueLocation location : issue.secondaryLocations()) {
+          writeLocation(out, location);
+        }
+      }
+    }
+  }
+
+  private static FileAnalysis read(DataInputStream in) throws IOException {
+    if (in.readInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported cache entry format");
+    }
+    FileAnalysis analysis = new FileAnalysis();
+    analysis.setParsed(in.readBoolean());
+    for (int i = in.readInt(); i > 0; --i) {
+      String key = readString(in);
+      Metric<Integer> metric = METRICS.get(key);
+      if (metric == null) {
+        throw new IOException("Unknown metric " + key);
+      }
+      analysis.addMeasure(metric, in.readInt());
+    }
+    analysis.setLines(readLines(in), readLines(in), readLines(in));
+    CpdTokens cpdTokens = new CpdTokens();
+    for (int i = in.readInt(); i > 0; --i) {
+      cpdTokens.add(in.readInt(), in.readInt(), in.readInt(), in.readInt(), readString(in));
+    }
+    cpdTokens.trimToSize();
+    analysis.setCpdTokens(cpdTokens);
+    for (int i = in.readInt(); i > 0; --i) {
+      analysis.addError(in.readInt(), in.readInt(), readString(in));
+    }
+    for (int i = in.readInt(); i > 0; --i) {
+      RuleKey ruleKey = RuleKey.parse(readString(in));
+      List<PreciseIssue> issues = new ArrayList<>();
+      for (int j = in.readInt(); j > 0; --j) {
+        Integer cost = in.readBoolean() ? in.readInt() : null;
+        PreciseIssue issue = new PreciseIssue(readLocation(in));
+        if (cost != null) {
+          issue.withCost(cost);
+        }
+        for (int k = in.readInt(); k > 0; --k) {
+          issue.secondary(readLocation(in));
+        }
+        issues.add(issue);
+      }
+      analysis.addIssues(ruleKey, issues);
+    }
+    return analysis;
+  }
+
+  private static void writeLocation(DataOutputStream out, IssueLocation location) throws IOException {
+    String message = location.message();
+    out.writeBoolean(message != null);
+    if (message != null) {
+      writeString(out, message);
+    }
+    out.writeInt(location.startLine());
+    out.writeInt(location.startLineOffset());
+    out.writeInt(location.endLine());
+    out.writeInt(location.endLineOffset());
+  }
+
+  private static IssueLocation readLocation(DataInputStream in) throws IOException {
+    String message = in.readBoolean() ? readString(in) : null;
+    return IssueLocation.atPosition(message, in.readInt(), in.readInt(), in.readInt(), in.readInt());
+  }
+
+  private static void writeLines(DataOutputStream out, Set<Integer> lines) throws IOException {
+    out.writeInt(lines.size());
+    for (int line : lines) {
+      out.writeInt(line);
+    }
+  }
+
+  private static Set<Integer> readLines(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    Set<Integer> lines = new HashSet<>(size * 2);
+    for (int i = 0; i < size; ++i) {
+      lines.add(in.readInt());
+    }
+    return lines;
+  }
+
+  // DataOutputStream.writeUTF is limited to 64kB, which a single token may exceed
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String codeSourceOf(Class<?> type) {
+    CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+    URL location = codeSource == null ? null : codeSource.getLocation();
+    if (location == null) {
+      return "unknown";
+    }
+    try {
+      File file = Paths.get(location.toURI()).toFile();
+      return location + ":" + file.length() + ":" + file.lastModified();
+    } catch (URISyntaxException | RuntimeException e) {
+      return location.toString();
+    }
+  }
+
+  private static String readField(Object instance, Field field) {
+    try {
+      field.setAccessible(true);
+      return String.valueOf(field.get(instance));
+    } catch (IllegalAccessException | RuntimeException e) {
+      // parameters that can't be read must not silently share an entry
+      return "unreadable@" + System.identityHashCode(instance);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  private static class CachedFile {
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    private CachedFile(Path path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
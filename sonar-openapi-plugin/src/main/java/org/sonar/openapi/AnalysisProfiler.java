@@ -0,0 +1,173 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.text.JsonWriter;
+
+/**
+ * Measures where the analysis time goes: in each phase of the analysis of a file, and in each rule.
+ * <p>
+ * Times are accumulated per file, and can be written as a JSON report and summarized in the log. When profiling is
+ * active, the checks are run one after the other rather than in a single walk of the tree, so that each of them can
+ * be timed: the total analysis time is then higher than without profiling.
+ * <p>
+ * An instance can be used from several threads.
+ */
+public class AnalysisProfiler {
+  static final String READ = "read";
+  static final String CACHE = "cache";
+  static final String PARSE = "parse";
+  static final String METRICS = "metrics";
+  static final String CPD = "cpd";
+  static final String CHECKS = "checks";
+  static final String SAVE_MEASURES = "save measures";
+  static final String SAVE_ISSUES = "save issues";
+
+  private static final Logger LOG = Loggers.get(AnalysisProfiler.class);
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final Map<String, FileTimes> files = new ConcurrentHashMap<>();
+
+  void recordPhase(InputFile inputFile, String phase, long startNanos) {
+    timesOf(inputFile).add(phase, System.nanoTime() - startNanos, false);
+  }
+
+  void recordRule(InputFile inputFile, String ruleKey, long startNanos) {
+    timesOf(inputFile).add(ruleKey, System.nanoTime() - startNanos, true);
+  }
+
+  private FileTimes timesOf(InputFile inputFile) {
+    return files.computeIfAbsent(inputFile.key(), FileTimes::new);
+  }
+
+  /**
+   * Logs the phases, and the slowest files and rules.
+   * @param count the maximum number of files and rules to log
+   */
+  public void logSummary(int count) {
+    if (files.isEmpty()) {
+      return;
+    }
+    LOG.info("OpenAPI analysis time per phase: {}", format(totals(false), Integer.MAX_VALUE));
+    LOG.info("Slowest OpenAPI rules: {}", format(totals(true), count));
+    Map<String, Long> fileTotals = new LinkedHashMap<>();
+    files.values().forEach(times -> fileTotals.put(times.file, times.total()));
+    LOG.info("Slowest OpenAPI files: {}", format(fileTotals, count));
+  }
+
+  /**
+   * Writes a JSON report with the cumulated times per phase and per rule, and the times of each file.
+   * @param report the file to write
+   */
+  public void writeReport(Path report) {
+    try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8);
+         JsonWriter json = JsonWriter.of(writer)) {
+      json.beginObject();
+      json.name("unit").value("ms");
+      writeTimes(json, "phases", totals(false));
+      writeTimes(json, "rules", totals(true));
+      json.name("files").beginArray();
+      for (FileTimes times : sortedFiles()) {
+        json.beginObject();
+        json.prop("file", times.file);
+        json.prop("total", toMillis(times.total()));
+        writeTimes(json, "phases", times.snapshot(false));
+        writeTimes(json, "rules", times.snapshot(true));
+        json.endObject();
+      }
+      json.endArray();
+      json.endObject();
+      LOG.info("OpenAPI profiling report written to {}", report);
+    } catch (IOException e) {
+      LOG.warn("Unable to write the OpenAPI profiling report to " + report, e);
+    }
+  }
+
+  private List<FileTimes> sortedFiles() {
+    List<FileTimes> sorted = new ArrayList<>(files.values());
+    sorted.sort(Comparator.comparingLong(FileTimes::total).reversed());
+    return sorted;
+  }
+
+  private Map<String, Long> totals(boolean rules) {
+    Map<String, Long> totals = new LinkedHashMap<>();
+    for (FileTimes times : files.values()) {
+      times.snapshot(rules).forEach((name, nanos) -> totals.merge(name, nanos, Long::sum));
+    }
+    return totals;
+  }
+
+  private static void writeTimes(JsonWriter json, String name, Map<String, Long> times) {
+    json.name(name).beginObject();
+    times.entrySet().stream()
+      .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+      .forEach(entry -> json.prop(entry.getKey(), toMillis(entry.getValue())));
+    json.endObject();
+  }
+
+  private static String format(Map<String, Long> times, int count) {
+    return times.entrySet().stream()
+      .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+      .limit(count)
+      .map(entry -> entry.getKey() + "=" + Math.round(toMillis(entry.getValue())) + "ms")
+      .collect(Collectors.joining(", "));
+  }
+
+  private static double toMillis(long nanos) {
+    return Math.round(nanos / NANOS_PER_MILLI * 1000) / 1000.0;
+  }
+
+  private static class FileTimes {
+    private final String file;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> rules = new LinkedHashMap<>();
+
+    private FileTimes(String file) {
+      this.file = file;
+    }
+
+    synchronized void add(String name, long nanos, boolean rule) {
+      (rule ? rules : phases).merge(name, nanos, Long::sum);
+    }
+
+    synchronized Map<String, Long> snapshot(boolean rule) {
+      return new LinkedHashMap<>(rule ? rules : phases);
+    }
+
+    synchronized long total() {
+      return phases.values().stream().mapToLong(Long::longValue).sum();
+    }
+  }
+}
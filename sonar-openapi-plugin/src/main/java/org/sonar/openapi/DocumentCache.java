@@ -0,0 +1,195 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import com.sonar.sslr.api.RecognitionException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.openapi.parser.OpenApiParser;
+import org.sonar.openapi.parser.OpenApiVersionDetector;
+import org.sonar.openapi.parser.OpenApiVersionDetector.Version;
+import org.sonar.openapi.parser.YamlLimits;
+import org.sonar.sslr.yaml.grammar.JsonNode;
+import org.sonar.sslr.yaml.grammar.YamlParser;
+
+/**
+ * The documents that contracts reference through {@code $ref}, parsed once per analysis and shared by all the
+ * contracts that reference them.
+ * <p>
+ * Only the files of the project are loaded, symbolic links being followed before checking it. Documents that are complete contracts are parsed with the grammar of
+ * their version, the other ones are parsed without validation. The cache is bounded by the total size of the
+ * documents it holds: the least recently used documents are dropped first, and parsed again if needed.
+ * <p>
+ * An instance can be used from several threads. A document requested by several threads at once is parsed once.
+ */
+public class DocumentCache {
+  private static final Logger LOG = Loggers.get(DocumentCache.class);
+
+  private final Path baseDir;
+  private final OpenApiConfiguration configuration;
+  private final long maxSize;
+  private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+  private final AtomicInteger loads = new AtomicInteger();
+  private final AtomicInteger parses = new AtomicInteger();
+
+  /**
+   * @param baseDir the base directory of the project, outside of which documents are not loaded
+   * @param configuration the configuration of the parsers, preferably without strict validation
+   * @param maxSize the maximum total size in characters of the cached documents
+   */
+  public DocumentCache(Path baseDir, OpenApiConfiguration configuration, long maxSize) {
+    this.baseDir = realPath(baseDir.toAbsolutePath().normalize());
+    this.configuration = configuration;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @param directory the directory of the referencing contract
+   * @param location the location of the document, as written in the reference
+   * @return the root of the document, or {@code null} if it is not a readable YAML or JSON file of the project
+   */
+  @CheckForNull
+  public JsonNode load(Path directory, String location) {
+    if (location.isEmpty() || location.contains(":")) {
+      // remote documents are not loaded
+      return null;
+    }
+    Path file;
+    try {
+      file = directory.resolve(location).toRealPath();
+    } catch (IOException | InvalidPathException e) {
+      return null;
+    }
+    if (!file.startsWith(baseDir) || !Files.isRegularFile(file)) {
+      return null;
+    }
+    loads.incrementAndGet();
+    Entry entry;
+    boolean parsing = false;
+    synchronized (entries) {
+      entry = entries.get(file);
+      if (entry == null) {
+        entry = new Entry(file);
+        entries.put(file, entry);
+        parsing = true;
+      }
+    }
+    if (parsing) {
+      entry.document.run();
+      synchronized (entries) {
+        size += entry.size;
+        evict();
+      }
+    }
+    return entry.get();
+  }
+
+  private static Path realPath(Path path) {
+    try {
+      return path.toRealPath();
+    } catch (IOException e) {
+      return path;
+    }
+  }
+
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      Entry eldest = iterator.next();
+      if (eldest.document.isDone()) {
+        size -= eldest.size;
+        iterator.remove();
+      }
+    }
+  }
+
+  private YamlParser parser(String text) {
+    Optional<Version> version = OpenApiVersionDetector.detect(text);
+    if (!version.isPresent()) {
+      return OpenApiParser.createFragment(configuration);
+    } else if (version.get() == Version.V2) {
+      return OpenApiParser.createV2(configuration);
+    } else {
+      return OpenApiParser.createV3(configuration);
+    }
+  }
+
+  public int loads() {
+    return loads.get();
+  }
+
+  public int parses() {
+    return parses.get();
+  }
+
+  public void logStatistics() {
+    if (loads() > 0) {
+      LOG.info("OpenAPI referenced documents: {} references to other files resolved by parsing {} documents", loads(), parses());
+    }
+  }
+
+  private class Entry {
+    private final FutureTask<Optional<JsonNode>> document;
+    private long size;
+
+    private Entry(Path file) {
+      this.document = new FutureTask<>(() -> parse(file));
+    }
+
+    private Optional<JsonNode> parse(Path file) {
+      parses.incrementAndGet();
+      try {
+        String text = FileContent.read(file, configuration.getCharset(), Long.MAX_VALUE).text();
+        size = text.length();
+        YamlLimits.check(text, configuration);
+        return Optional.of(parser(text).parse(text));
+      } catch (IOException | RecognitionException e) {
+        LOG.debug("Unable to load referenced document " + file, e);
+        return Optional.empty();
+      }
+    }
+
+    @CheckForNull
+    private JsonNode get() {
+      try {
+        return document.get().orElse(null);
+      } catch (ExecutionException e) {
+        LOG.debug("Unable to load referenced document", e.getCause());
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while loading a referenced document", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.openapi.api.PreciseIssue;
+import org.sonar.plugins.openapi.cpd.OpenApiCpdAnalyzer.CpdTokens;
+
+/**
+ * The outcome of the analysis of a single file: issues, measures, duplication tokens and analysis errors.
+ * <p>
+ * Building it never touches the sensor context, so that files can be analyzed on any thread and their results saved
+ * later, in a predictable order, by the sensor thread.
+ */
+class FileAnalysis {
+  private final Map<RuleKey, List<PreciseIssue>> issues = new LinkedHashMap<>();
+  private final Map<Metric<Integer>, Integer> measures = new LinkedHashMap<>();
+  private final List<AnalysisError> errors = new ArrayList<>();
+  private boolean parsed;
+  private boolean timedOut;
+  private boolean referencesOtherFiles;
+  private Set<Integer> linesOfCode = Collections.emptySet();
+  private Set<Integer> linesOfComments = Collections.emptySet();
+  private Set<Integer> linesWithNoSonar = Collections.emptySet();
+  private CpdTokens cpdTokens = new CpdTokens();
+
+  void addIssues(RuleKey ruleKey, List<PreciseIssue> ruleIssues) {
+    if (!ruleIssues.isEmpty()) {
+      issues.put(ruleKey, ruleIssues);
+    }
+  }
+
+  void addMeasure(Metric<Integer> metric, int value) {
+    measures.put(metric, value);
+  }
+
+  void addError(int line, int column, String message) {
+    errors.add(new AnalysisError(line, column, message));
+  }
+
+  void setLines(Set<Integer> linesOfCode, Set<Integer> linesOfComments, Set<Integer> linesWithNoSonar) {
+    this.linesOfCode = linesOfCode;
+    this.linesOfComments = linesOfComments;
+    this.linesWithNoSonar = linesWithNoSonar;
+  }
+
+  void setCpdTokens(CpdTokens cpdTokens) {
+    this.cpdTokens = cpdTokens;
+  }
+
+  void setParsed(boolean parsed) {
+    this.parsed = parsed;
+  }
+
+  void setTimedOut(boolean timedOut) {
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * @return {@code true} if part of the analysis was interrupted by a time budget, in which case it must not be cached
+   */
+  boolean isTimedOut() {
+    return timedOut;
+  }
+
+  void setReferencesOtherFiles(boolean referencesOtherFiles) {
+    this.referencesOtherFiles = referencesOtherFiles;
+  }
+
+  /**
+   * @return {@code true} if references to other files were followed, in which case the analysis also depends on these
+   * files and must not be cached
+   */
+  boolean referencesOtherFiles() {
+    return referencesOtherFiles;
+  }
+
+  /**
+   * @return {@code true} if the file could be parsed, in which case measures, NoSonar lines and CPD tokens are available
+   */
+  boolean isParsed() {
+    return parsed;
+  }
+
+  Map<RuleKey, List<PreciseIssue>> issues() {
+    return issues;
+  }
+
+  Map<Metric<Integer>, Integer> measures() {
+    return measures;
+  }
+
+  List<AnalysisError> errors() {
+    return errors;
+  }
+
+  Set<Integer> linesOfCode() {
+    return linesOfCode;
+  }
+
+  Set<Integer> linesOfComments() {
+    return linesOfComments;
+  }
+
+  Set<Integer> linesWithNoSonar() {
+    return linesWithNoSonar;
+  }
+
+  CpdTokens cpdTokens() {
+    return cpdTokens;
+  }
+
+  static final class AnalysisError {
+    private final int line;
+    private final int column;
+    private final String message;
+
+    private AnalysisError(int line, int column, String message) {
+      this.line = line;
+      this.column = column;
+      this.message = message;
+    }
+
+    int line() {
+      return line;
+    }
+
+    int column() {
+      return column;
+    }
+
+    String message() {
+      return message;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * The content of a file, read from disk once and decoded once. The raw bytes are used to look up the analysis cache,
+ * the decoded text is given to the parser and to the checks through {@link org.sonar.plugins.openapi.api.OpenApiFile}.
+ */
+final class FileContent {
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+  private final ByteBuffer bytes;
+  private final String text;
+
+  private FileContent(ByteBuffer bytes, String text) {
+    this.bytes = bytes;
+    this.text = text;
+  }
+
+  /**
+   * Reads a file. Files of at least {@code mappingThreshold} bytes are memory-mapped rather than copied on the heap.
+   * @param inputFile the file to read
+   * @param mappingThreshold the size from which files are memory-mapped
+   * @return the content of the file
+   * @throws IOException if the file cannot be read
+   */
+  static FileContent read(InputFile inputFile, long mappingThreshold) throws IOException {
+    return read(inputFile.path(), inputFile.charset(), mappingThreshold);
+  }
+
+  static FileContent read(Path path, Charset charset, long mappingThreshold) throws IOException {
+    ByteBuffer bytes;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size >= mappingThreshold) {
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } else {
+        bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+      }
+    }
+    String text = charset.decode(bytes.duplicate()).toString();
+    if (!text.isEmpty() && text.charAt(0) == BYTE_ORDER_MARK) {
+      text = text.substring(1);
+    }
+    return new FileContent(bytes.asReadOnlyBuffer(), text);
+  }
+
+  /**
+   * @return a new read-only view of the raw content
+   */
+  ByteBuffer bytes() {
+    return bytes.duplicate();
+  }
+
+  String text() {
+    return text;
+  }
+}
@@ -20,8 +20,21 @@
 package org.sonar.openapi;
 
 import com.sonar.sslr.api.RecognitionException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -39,9 +52,13 @@ import org.sonar.openapi.metrics.FileLinesVisitor;
 import org.sonar.openapi.metrics.FileMetrics;
 import org.sonar.openapi.metrics.OpenApiMetrics;
 import org.sonar.openapi.parser.OpenApiParser;
+import org.sonar.openapi.parser.YamlLimits;
+import org.sonar.plugins.openapi.api.AnalysisTimeoutException;
+import org.sonar.plugins.openapi.api.CompositeVisitor;
 import org.sonar.plugins.openapi.api.IssueLocation;
 import org.sonar.plugins.openapi.api.OpenApiCheck;
 import org.sonar.plugins.openapi.api.OpenApiFile;
+import org.sonar.plugins.openapi.api.OpenApiVisitor;
 import org.sonar.plugins.openapi.api.OpenApiVisitorContext;
 import org.sonar.plugins.openapi.api.PreciseIssue;
 import org.sonar.plugins.openapi.cpd.OpenApiCpdAnalyzer;
@@ -54,24 +71,43 @@ public class OpenApiAnalyzer {
   private final SensorContext context;
   private final List<InputFile> inputFiles;
   private final OpenApiChecks checks;
-  private final YamlParser parser;
+  private final OpenApiConfiguration configuration;
+  private final boolean isv2;
+  private final int threads;
   private final NoSonarFilter noSonarFilter;
   private final OpenApiCpdAnalyzer cpdAnalyzer;
+  private final AnalysisCache cache;
+  private byte[] cacheFingerprint;
+  private final AtomicInteger skippedFiles = new AtomicInteger();
+  private boolean changedFilesOnly;
+  private long mappingThreshold = Long.MAX_VALUE;
+  private AnalysisProfiler profiler;
+  private long fileBudgetNanos;
+  private long ruleBudgetNanos;
+  private boolean skimPayloads;
+  private DocumentCache documents;
   private FileLinesContextFactory fileLinesContextFactory;
 
   public OpenApiAnalyzer(SensorContext context, OpenApiChecks checks, FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, List<InputFile> inputFiles, boolean isv2) {
+    this(context, checks, fileLinesContextFactory, noSonarFilter, inputFiles, isv2, 1);
+  }
+
+  public OpenApiAnalyzer(SensorContext context, OpenApiChecks checks, FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, List<InputFile> inputFiles, boolean isv2, int threads) {
+    this(context, checks, fileLinesContextFactory, noSonarFilter, inputFiles, isv2, threads, null);
+  }
+
+  public OpenApiAnalyzer(SensorContext context, OpenApiChecks checks, FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, List<InputFile> inputFiles, boolean isv2, int threads,
+    @Nullable AnalysisCache cache) {
     this.context = context;
     this.checks = checks;
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.noSonarFilter = noSonarFilter;
     this.cpdAnalyzer = new OpenApiCpdAnalyzer(context);
     this.inputFiles = inputFiles;
-    OpenApiConfiguration configuration = new OpenApiConfiguration(context.fileSystem().encoding(), true);
-    if (isv2) {
-      this.parser = OpenApiParser.createV2(configuration);
-    } else {
-      this.parser = OpenApiParser.createV3(configuration);
-    }
+    this.configuration = new OpenApiConfiguration(context.fileSystem().encoding(), true);
+    this.isv2 = isv2;
+    this.threads = Math.max(1, Math.min(threads, inputFiles.size()));
+    this.cache = cache;
   }
 
   private static NewIssueLocation newLocation(InputFile inputFile, NewIssue issue, IssueLocation location) {
@@ -93,61 +129,177 @@ public class OpenApiAnalyzer {
     return newLocation;
   }
 
+  /**
+   * Restricts the analysis to the files that are added or changed, for pull request analyses. The results of unchanged
+   * files are replayed from the cache when available, otherwise these files are not analyzed at all. Without a cache,
+   * all the files are analyzed.
+   * @param changedFilesOnly {@code true} to skip the analysis of unchanged files
+   */
+  public void setChangedFilesOnly(boolean changedFilesOnly) {
+    this.changedFilesOnly = changedFilesOnly;
+  }
+
+  /**
+   * Files are read once, and shared by the parser, the checks and the cache. By default, they are copied on the heap.
+   * @param mappingThreshold the size in bytes from which files are memory-mapped instead
+   */
+  public void setMappingThreshold(long mappingThreshold) {
+    this.mappingThreshold = mappingThreshold;
+  }
+
+  /**
+   * Times each phase of the analysis and each rule. Checks are then run one after the other instead of in a single walk.
+   * @param profiler where to record times, or {@code null} to disable profiling
+   */
+  public void setProfiler(@Nullable AnalysisProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  /**
+   * Limits the time spent on each file and by each rule on a file. Walks of the tree are interrupted once the budget is
+   * exceeded: a file that is too long to analyze only gets an analysis error, a rule that is too long to run on a file
+   * has its issues on that file ignored. Parsing can't be interrupted, but counts in the file budget.
+   * @param fileBudgetMillis the time budget of each file, or 0 for no limit
+   * @param ruleBudgetMillis the time budget of each rule on each file, or 0 for no limit
+   */
+  public void setTimeBudgets(long fileBudgetMillis, long ruleBudgetMillis) {
+    this.fileBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, fileBudgetMillis));
+    this.ruleBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ruleBudgetMillis));
+  }
+
+  /**
+   * Skims the values of examples, defaults and extensions: only their lines are counted, their nodes are not visited.
+   * This only applies when the checks run in a single walk, that is without profiling nor rule time budget.
+   * @param skimPayloads {@code true} to skim payloads
+   */
+  public void setSkimPayloads(boolean skimPayloads) {
+    this.skimPayloads = skimPayloads;
+  }
+
+  /**
+   * Resolves the references to other files of the project, in documents shared by all the analyzed contracts.
+   * @param documents the referenced documents, or {@code null} to leave these references unresolved
+   */
+  public void setDocumentCache(@Nullable DocumentCache documents) {
+    this.documents = documents;
+  }
+
   public void scanFiles() {
+    // computed once all the settings are known
+    cacheFingerprint = cache == null ? null : AnalysisCache.fingerprint(checks, isv2, configuration, skimPayloads);
+    if (threads == 1) {
+      scanSequentially();
+    } else {
+      scanInParallel();
+    }
+    if (skippedFiles.get() > 0) {
+      LOG.info("{} unchanged OpenAPI files were not analyzed", skippedFiles.get());
+    }
+  }
+
+  private void scanSequentially() {
+    FileScanner scanner = new FileScanner(checks);
     for (InputFile openApiFile : inputFiles) {
       if (context.isCancelled()) {
         return;
       }
-      scanFile(openApiFile);
+      save(openApiFile, scanner.scan(openApiFile));
     }
   }
 
-  private void scanFile(InputFile inputFile) {
-    OpenApiFile openApiFile = SonarQubeOpenApiFile.create(inputFile);
-    OpenApiVisitorContext visitorContext;
-
+  /**
+   * Files are parsed and checked by a pool of workers, each with its own parser and set of checks. Results are saved
+   * on the calling thread in the order of {@link #inputFiles}, so that the sensor context sees exactly the same
+   * sequence of calls as with {@link #scanSequentially()}.
+   */
+  private void scanInParallel() {
+    LOG.debug("Analyzing {} OpenAPI files on {} threads", inputFiles.size(), threads);
+    List<CompletableFuture<FileAnalysis>> results = new ArrayList<>(inputFiles.size());
+    for (int i = 0; i < inputFiles.size(); ++i) {
+      results.add(new CompletableFuture<>());
+    }
+    AtomicInteger nextFile = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new AnalyzerThreadFactory());
     try {
-      visitorContext = new OpenApiVisitorContext(parser.parse(inputFile.file()), parser.getIssues(), openApiFile);
-      saveMeasures(inputFile, visitorContext);
-    } catch (ValidationException e) {
-      visitorContext = new OpenApiVisitorContext(openApiFile, e);
-      LOG.error("Error during file validation: " + inputFile.filename() + "\"\n" + e.formatMessage());
-      for (ValidationException cause : e.getCauses()) {
-        dumpException(cause, inputFile);
+      for (int i = 0; i < threads; ++i) {
+        executor.execute(() -> scanWorker(nextFile, results));
       }
+      for (int i = 0; i < inputFiles.size(); ++i) {
+        if (context.isCancelled()) {
+          return;
+        }
+        save(inputFiles.get(i), await(results.get(i)));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-    } catch (RecognitionException e) {
-      visitorContext = new OpenApiVisitorContext(openApiFile, e);
-      LOG.error("Unable to parse file: " + inputFile.filename() + "\"\n" + e.getMessage());
-      dumpException(e, inputFile);
+  private void scanWorker(AtomicInteger nextFile, List<CompletableFuture<FileAnalysis>> results) {
+    FileScanner scanner = null;
+    int index;
+    while ((index = nextFile.getAndIncrement()) < inputFiles.size()) {
+      CompletableFuture<FileAnalysis> result = results.get(index);
+      if (context.isCancelled()) {
+        result.cancel(false);
+        continue;
+      }
+      try {
+        if (scanner == null) {
+          scanner = new FileScanner(checks.copy());
+        }
+        result.complete(scanner.scan(inputFiles.get(index)));
+      } catch (RuntimeException | Error e) {
+        result.completeExceptionally(e);
+      }
     }
+  }
 
-    for (OpenApiCheck check : checks.all()) {
-      saveIssues(inputFile, check, check.scanFileForIssues(visitorContext));
+  private static FileAnalysis await(CompletableFuture<FileAnalysis> result) {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the analysis of an OpenAPI file", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
     }
   }
 
-  private void dumpException(RecognitionException e, InputFile inputFile) {
-    int line = e.getLine();
-    if (line == 0) {
-      line = 1;
+  private void save(InputFile inputFile, @Nullable FileAnalysis analysis) {
+    if (analysis == null) {
+      return;
     }
-    int column = 0;
-    if (e instanceof ValidationException) {
-      column = ((ValidationException) e).getNode().getToken().getColumn();
-      for (ValidationException cause : ((ValidationException) e).getCauses()) {
-        dumpException(cause, inputFile);
-      }
+    long start = System.nanoTime();
+    if (analysis.isParsed()) {
+      saveMeasures(inputFile, analysis);
     }
-    context.newAnalysisError()
-        .onFile(inputFile)
-        .at(inputFile.newPointer(line, column))
-        .message(e.getMessage())
-        .save();
+    profile(inputFile, AnalysisProfiler.SAVE_MEASURES, start);
+    start = System.nanoTime();
+    for (FileAnalysis.AnalysisError error : analysis.errors()) {
+      context.newAnalysisError()
+          .onFile(inputFile)
+          .at(inputFile.newPointer(error.line(), error.column()))
+          .message(error.message())
+          .save();
+    }
+    analysis.issues().forEach((ruleKey, issues) -> saveIssues(inputFile, ruleKey, issues));
+    profile(inputFile, AnalysisProfiler.SAVE_ISSUES, start);
   }
 
-  private void saveIssues(InputFile inputFile, OpenApiCheck check, List<PreciseIssue> issues) {
-    RuleKey ruleKey = checks.ruleKeyFor(check);
+  private void profile(InputFile inputFile, String phase, long startNanos) {
+    if (profiler != null) {
+      profiler.recordPhase(inputFile, phase, startNanos);
+    }
+  }
+
+  private void saveIssues(InputFile inputFile, RuleKey ruleKey, List<PreciseIssue> issues) {
     for (PreciseIssue preciseIssue : issues) {
 
       NewIssue newIssue = context
@@ -169,30 +321,17 @@ public class OpenApiAnalyzer {
     }
   }
 
-  private void saveMeasures(InputFile inputFile, OpenApiVisitorContext visitorContext) {
-    FileMetrics fileMetrics = new FileMetrics(visitorContext);
-    FileLinesVisitor fileLinesVisitor = fileMetrics.fileLinesVisitor();
+  private void saveMeasures(InputFile inputFile, FileAnalysis analysis) {
+    cpdAnalyzer.saveCpdTokens(inputFile, analysis.cpdTokens());
+    noSonarFilter.noSonarInFile(inputFile, analysis.linesWithNoSonar());
 
-    cpdAnalyzer.pushCpdTokens(inputFile, visitorContext);
-    noSonarFilter.noSonarInFile(inputFile, fileLinesVisitor.getLinesWithNoSonar());
-
-    Set<Integer> linesOfCode = fileLinesVisitor.getLinesOfCode();
-    Set<Integer> linesOfComments = fileLinesVisitor.getLinesOfComments();
-
-    saveMetricOnFile(inputFile, CoreMetrics.NCLOC, linesOfCode.size());
-    saveMetricOnFile(inputFile, CoreMetrics.COMMENT_LINES, linesOfComments.size());
-
-    saveMetricOnFile(inputFile, OpenApiMetrics.SCHEMAS_COUNT, fileMetrics.numberOfSchemas());
-    saveMetricOnFile(inputFile, OpenApiMetrics.OPERATIONS_COUNT, fileMetrics.numberOfOperations());
-    saveMetricOnFile(inputFile, OpenApiMetrics.PATHS_COUNT, fileMetrics.numberOfPaths());
-
-    saveMetricOnFile(inputFile, CoreMetrics.COMPLEXITY, fileMetrics.complexity());
+    analysis.measures().forEach((metric, value) -> saveMetricOnFile(inputFile, metric, value));
 
     FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
-    for (int line : linesOfCode) {
+    for (int line : analysis.linesOfCode()) {
       fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
     }
-    for (int line : linesOfComments) {
+    for (int line : analysis.linesOfComments()) {
       fileLinesContext.setIntValue(CoreMetrics.COMMENT_LINES_DATA_KEY, line, 1);
     }
     fileLinesContext.save();
@@ -205,4 +344,229 @@ public class OpenApiAnalyzer {
         .on(inputFile)
         .save();
   }
+
+  /**
+   * Parses and checks files, without writing anything to the sensor context. An instance must only be used by one
+   * thread at a time, since neither the parser nor the checks are thread-safe.
+   */
+  private class FileScanner {
+    private final OpenApiChecks fileChecks;
+    private final YamlParser parser;
+    private final FileMetrics fileMetrics = new FileMetrics();
+    private final CompositeVisitor visitors;
+
+    private FileScanner(OpenApiChecks fileChecks) {
+      this.fileChecks = fileChecks;
+      if (isv2) {
+        this.parser = OpenApiParser.createV2(configuration);
+      } else {
+        this.parser = OpenApiParser.createV3(configuration);
+      }
+      List<OpenApiVisitor> allVisitors = new ArrayList<>(fileMetrics.visitors());
+      allVisitors.addAll(fileChecks.all());
+      this.visitors = new CompositeVisitor(allVisitors);
+      this.visitors.setSkimPayloads(skimPayloads);
+    }
+
+    /**
+     * @return the analysis of the file, or {@code null} if it was skipped as unchanged
+     */
+    @CheckForNull
+    private FileAnalysis scan(InputFile inputFile) {
+      long start = System.nanoTime();
+      FileContent content = read(inputFile);
+      profile(inputFile, AnalysisProfiler.READ, start);
+      if (cache == null) {
+        return analyze(inputFile, content);
+      }
+      boolean skipped = changedFilesOnly && inputFile.status() == InputFile.Status.SAME;
+      start = System.nanoTime();
+      FileAnalysis analysis = cache.load(cacheFingerprint, content.bytes());
+      profile(inputFile, AnalysisProfiler.CACHE, start);
+      if (analysis == null) {
+        if (skipped) {
+          return skip();
+        }
+        analysis = analyze(inputFile, content);
+        if (!analysis.isTimedOut() && !analysis.referencesOtherFiles()) {
+          start = System.nanoTime();
+          cache.store(cacheFingerprint, content.bytes(), analysis);
+          profile(inputFile, AnalysisProfiler.CACHE, start);
+        }
+      }
+      return analysis;
+    }
+
+    @CheckForNull
+    private FileAnalysis skip() {
+      skippedFiles.incrementAndGet();
+      return null;
+    }
+
+    private FileContent read(InputFile inputFile) {
+      try {
+        return FileContent.read(inputFile, mappingThreshold);
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not read content of input file " + inputFile, e);
+      }
+    }
+
+    private FileAnalysis analyze(InputFile inputFile, FileContent content) {
+      FileAnalysis analysis = new FileAnalysis();
+      OpenApiFile openApiFile = SonarQubeOpenApiFile.create(inputFile, content.text());
+      OpenApiVisitorContext visitorContext;
+
+      long start = System.nanoTime();
+      try {
+        YamlLimits.check(content.text(), configuration);
+        visitorContext = new OpenApiVisitorContext(parser.parse(content.text()), parser.getIssues(), openApiFile);
+      } catch (ValidationException e) {
+        visitorContext = new OpenApiVisitorContext(openApiFile, e);
+        LOG.error("Error during file validation: " + inputFile.filename() + "\"\n" + e.formatMessage());
+        for (ValidationException cause : e.getCauses()) {
+          dumpException(cause, analysis);
+        }
+
+      } catch (RecognitionException e) {
+        visitorContext = new OpenApiVisitorContext(openApiFile, e);
+        LOG.error("Unable to parse file: " + inputFile.filename() + "\"\n" + e.getMessage());
+        dumpException(e, analysis);
+      }
+      profile(inputFile, AnalysisProfiler.PARSE, start);
+      if (documents != null) {
+        Path directory = inputFile.path().getParent();
+        visitorContext.setExternalDocumentLoader(location -> {
+          analysis.setReferencesOtherFiles(true);
+          return documents.load(directory, location);
+        });
+      }
+
+      boolean hasFileBudget = fileBudgetNanos > 0;
+      long fileDeadline = start + fileBudgetNanos;
+      try {
+        if (hasFileBudget) {
+          if (System.nanoTime() - fileDeadline > 0) {
+            throw new AnalysisTimeoutException("Time budget exceeded while parsing " + inputFile.filename());
+          }
+          visitorContext.setDeadline(fileDeadline);
+        }
+        if (profiler == null && ruleBudgetNanos == 0) {
+          // metrics and checks share a single walk of the tree
+          Map<OpenApiCheck, List<PreciseIssue>> issues = visitors.scanFileForIssues(visitorContext);
+          if (visitorContext.rootTree() != null) {
+            computeMeasures(inputFile, visitorContext, fileMetrics, analysis);
+          }
+          for (OpenApiCheck check : fileChecks.all()) {
+            analysis.addIssues(fileChecks.ruleKeyFor(check), issues.get(check));
+          }
+        } else {
+          analyzeCheckByCheck(inputFile, visitorContext, analysis, hasFileBudget, fileDeadline);
+        }
+      } catch (AnalysisTimeoutException e) {
+        return timedOut(inputFile, analysis);
+      }
+      return analysis;
+    }
+
+    /**
+     * Runs the checks one after the other, so that each of them can be timed and given its own time budget.
+     */
+    private void analyzeCheckByCheck(InputFile inputFile, OpenApiVisitorContext visitorContext, FileAnalysis analysis, boolean hasFileBudget, long fileDeadline) {
+      if (visitorContext.rootTree() != null) {
+        long start = System.nanoTime();
+        FileMetrics metrics = new FileMetrics(visitorContext);
+        profile(inputFile, AnalysisProfiler.METRICS, start);
+        computeMeasures(inputFile, visitorContext, metrics, analysis);
+      }
+      long checksStart = System.nanoTime();
+      for (OpenApiCheck check : fileChecks.all()) {
+        RuleKey ruleKey = fileChecks.ruleKeyFor(check);
+        long start = System.nanoTime();
+        if (ruleBudgetNanos > 0) {
+          long ruleDeadline = start + ruleBudgetNanos;
+          visitorContext.setDeadline(hasFileBudget && fileDeadline - ruleDeadline < 0 ? fileDeadline : ruleDeadline);
+        }
+        try {
+          analysis.addIssues(ruleKey, check.scanFileForIssues(visitorContext));
+        } catch (AnalysisTimeoutException e) {
+          if (hasFileBudget && System.nanoTime() - fileDeadline > 0) {
+            throw e;
+          }
+          String message = "Rule " + ruleKey + " exceeded its time budget of " + TimeUnit.NANOSECONDS.toMillis(ruleBudgetNanos)
+            + " ms on " + inputFile.filename() + ", its issues are ignored";
+          LOG.warn(message);
+          analysis.addError(1, 0, message);
+          analysis.setTimedOut(true);
+        }
+        if (profiler != null) {
+          profiler.recordRule(inputFile, String.valueOf(ruleKey), start);
+        }
+      }
+      profile(inputFile, AnalysisProfiler.CHECKS, checksStart);
+    }
+
+    /**
+     * Nothing is reported on a file whose analysis could not complete in time, except the errors and the timeout.
+     */
+    private FileAnalysis timedOut(InputFile inputFile, FileAnalysis partialAnalysis) {
+      String message = "Analysis of " + inputFile.filename() + " exceeded its time budget of " + TimeUnit.NANOSECONDS.toMillis(fileBudgetNanos)
+        + " ms, no issues nor measures are reported";
+      LOG.warn(message);
+      FileAnalysis analysis = new FileAnalysis();
+      for (FileAnalysis.AnalysisError error : partialAnalysis.errors()) {
+        analysis.addError(error.line(), error.column(), error.message());
+      }
+      analysis.addError(1, 0, message);
+      analysis.setTimedOut(true);
+      return analysis;
+    }
+  }
+
+  private static void dumpException(RecognitionException e, FileAnalysis analysis) {
+    int line = e.getLine();
+    if (line == 0) {
+      line = 1;
+    }
+    int column = 0;
+    if (e instanceof ValidationException) {
+      column = ((ValidationException) e).getNode().getToken().getColumn();
+      for (ValidationException cause : ((ValidationException) e).getCauses()) {
+        dumpException(cause, analysis);
+      }
+    }
+    analysis.addError(line, column, e.getMessage());
+  }
+
+  private void computeMeasures(InputFile inputFile, OpenApiVisitorContext visitorContext, FileMetrics fileMetrics, FileAnalysis analysis) {
+    FileLinesVisitor fileLinesVisitor = fileMetrics.fileLinesVisitor();
+
+    analysis.setParsed(true);
+    long start = System.nanoTime();
+    analysis.setCpdTokens(cpdAnalyzer.collectCpdTokens(visitorContext));
+    profile(inputFile, AnalysisProfiler.CPD, start);
+
+    Set<Integer> linesOfCode = fileLinesVisitor.getLinesOfCode();
+    Set<Integer> linesOfComments = fileLinesVisitor.getLinesOfComments();
+    analysis.setLines(linesOfCode, linesOfComments, fileLinesVisitor.getLinesWithNoSonar());
+
+    analysis.addMeasure(CoreMetrics.NCLOC, linesOfCode.size());
+    analysis.addMeasure(CoreMetrics.COMMENT_LINES, linesOfComments.size());
+
+    analysis.addMeasure(OpenApiMetrics.SCHEMAS_COUNT, fileMetrics.numberOfSchemas());
+    analysis.addMeasure(OpenApiMetrics.OPERATIONS_COUNT, fileMetrics.numberOfOperations());
+    analysis.addMeasure(OpenApiMetrics.PATHS_COUNT, fileMetrics.numberOfPaths());
+
+    analysis.addMeasure(CoreMetrics.COMPLEXITY, fileMetrics.complexity());
+  }
+
+  private static class AnalyzerThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "openapi-analyzer-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
@@ -25,19 +25,24 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.openapi.checks.CheckList;
 import org.sonar.plugins.openapi.api.OpenApiCheck;
 import org.sonar.plugins.openapi.api.OpenApiCustomRuleRepository;
+import org.sonar.plugins.openapi.api.ScopedCheck;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Helper class to facilitate the usage of checks.
  */
 public class OpenApiChecks {
   private final CheckFactory checkFactory;
-  private Set<Checks<OpenApiCheck>> checksByRepository = new HashSet<>();
+  private final List<Checks<OpenApiCheck>> checksByRepository = new ArrayList<>();
+  private final Map<String, List<Class>> classesByRepository = new LinkedHashMap<>();
+  private final Map<OpenApiCheck, RuleKey> sharedChecks = new LinkedHashMap<>();
+  @Nullable
+  private List<OpenApiCheck> copiedChecks;
 
   private OpenApiChecks(CheckFactory checkFactory) {
     this.checkFactory = checkFactory;
@@ -51,10 +56,57 @@ public class OpenApiChecks {
     checksByRepository.add(checkFactory
       .<OpenApiCheck>create(repositoryKey)
       .addAnnotatedChecks(checkClass));
+    List<Class> classes = classesByRepository.computeIfAbsent(repositoryKey, k -> new ArrayList<>());
+    checkClass.forEach(classes::add);
+    if (copiedChecks != null) {
+      copiedChecks.addAll(checksByRepository.get(checksByRepository.size() - 1).all());
+    }
 
     return this;
   }
 
+  /**
+   * Creates new instances of the registered checks, configured the same way. Most checks keep state while scanning a
+   * file, so each thread of analysis needs its own set; the {@link ScopedCheck}s do not, and are shared with the copy.
+   * The copy lists its checks in the same order as this instance, so that both report their issues in the same order.
+   * @return an independent copy of these checks
+   */
+  public OpenApiChecks copy() {
+    OpenApiChecks copy = new OpenApiChecks(checkFactory);
+    classesByRepository.forEach((repositoryKey, classes) -> {
+      List<Class> stateful = new ArrayList<>();
+      for (Class checkClass : classes) {
+        if (!ScopedCheck.class.isAssignableFrom(checkClass)) {
+          stateful.add(checkClass);
+        }
+      }
+      copy.addChecks(repositoryKey, stateful);
+      copy.classesByRepository.put(repositoryKey, new ArrayList<>(classes));
+    });
+    List<OpenApiCheck> ordered = new ArrayList<>();
+    for (OpenApiCheck check : all()) {
+      RuleKey ruleKey = ruleKeyFor(check);
+      if (check instanceof ScopedCheck) {
+        copy.sharedChecks.put(check, ruleKey);
+        ordered.add(check);
+      } else {
+        ordered.add(copy.checkOf(ruleKey));
+      }
+    }
+    copy.copiedChecks = ordered;
+    return copy;
+  }
+
+  private OpenApiCheck checkOf(RuleKey ruleKey) {
+    for (Checks<OpenApiCheck> checks : checksByRepository) {
+      OpenApiCheck check = checks.of(ruleKey);
+      if (check != null) {
+        return check;
+      }
+    }
+    throw new IllegalStateException("No check for rule " + ruleKey);
+  }
+
   public OpenApiChecks addCustomChecks(@Nullable OpenApiCustomRuleRepository[] customRuleRepositories) {
     if (customRuleRepositories != null) {
 
@@ -69,6 +121,9 @@ public class OpenApiChecks {
   }
 
   public List<OpenApiCheck> all() {
+    if (copiedChecks != null) {
+      return new ArrayList<>(copiedChecks);
+    }
     List<OpenApiCheck> allVisitors = new ArrayList<>();
 
     for (Checks<OpenApiCheck> checks : checksByRepository) {
@@ -89,6 +144,6 @@ public class OpenApiChecks {
         return ruleKey;
       }
     }
-    return null;
+    return sharedChecks.get(check);
   }
 }
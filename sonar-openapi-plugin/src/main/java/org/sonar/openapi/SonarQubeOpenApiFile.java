@@ -35,6 +35,13 @@ public abstract class SonarQubeOpenApiFile implements OpenApiFile {
     return new Sq62File(inputFile);
   }
 
+  /**
+   * Creates a file whose content has already been read, so that it is not read again from the disk.
+   */
+  public static OpenApiFile create(InputFile inputFile, String content) {
+    return new LoadedFile(inputFile, content);
+  }
+
   @Override
   public String fileName() {
     return inputFile.filename();
@@ -61,4 +68,19 @@ public abstract class SonarQubeOpenApiFile implements OpenApiFile {
 
   }
 
+  private static class LoadedFile extends SonarQubeOpenApiFile {
+    private final String content;
+
+    public LoadedFile(InputFile inputFile, String content) {
+      super(inputFile);
+      this.content = content;
+    }
+
+    @Override
+    public String content() {
+      return content;
+    }
+
+  }
+
 }
@@ -20,6 +20,7 @@
 package org.sonar.plugins.openapi;
 
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.openapi.metrics.OpenApiMetrics;
@@ -44,6 +45,17 @@ public class OpenApiPlugin implements Plugin {
         .onQualifiers(Qualifiers.PROJECT)
         .defaultValue("yaml,json")
         .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.MMAP_THRESHOLD_KEY)
+        .index(10)
+        .name("Memory-mapping threshold")
+        .description("Size in bytes from which OpenAPI files are memory-mapped rather than read on the heap. "
+          + "Each file is read only once, whatever its size.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.LONG)
+        .defaultValue(Long.toString(OpenApiScannerSensor.DEFAULT_MMAP_THRESHOLD))
+        .build(),
       PropertyDefinition.builder(OpenApiScannerSensor.V2_PATH_KEY)
         .index(11)
         .name("Paths to OpenAPI v2 contract(s)")
@@ -64,6 +76,114 @@ public class OpenApiPlugin implements Plugin {
         .multiValues(true)
         .defaultValue(OpenApiScannerSensor.DEFAULT_V3_PATH)
         .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.AUTODETECT_KEY)
+        .index(11)
+        .name("Detect the OpenAPI version")
+        .description("Analyze all OpenAPI files, and find the version of each contract from its top-level 'swagger' or 'openapi' key. "
+          + "The path properties are only used for the files where no such key is found.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.THREADS_KEY)
+        .index(12)
+        .name("Analysis threads")
+        .description("Number of threads used to parse and check the contracts. Results are identical whatever the value.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .defaultValue(Integer.toString(OpenApiScannerSensor.DEFAULT_THREADS))
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.CACHE_PATH_KEY)
+        .index(13)
+        .name("Analysis cache directory")
+        .description("Directory where the results of the analysis of each contract are kept, to be reused as long as neither the contract nor the rules change. "
+          + "Relative paths are resolved against the project base directory. Leave empty to disable the cache.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.CACHE_MAX_SIZE_KEY)
+        .index(13)
+        .name("Analysis cache size")
+        .description("Maximum size in megabytes of the analysis cache directory. Once an analysis is done, the entries that were not used for "
+          + "the longest time are deleted until the cache fits in this size.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(OpenApiScannerSensor.DEFAULT_CACHE_MAX_SIZE))
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.SKIP_UNCHANGED_KEY)
+        .index(14)
+        .name("Only analyze changed contracts")
+        .description("In pull request analyses, only analyze the contracts that were added or changed. "
+          + "The results of unchanged contracts are taken from the analysis cache, which must be configured. "
+          + "Ignored in other analyses.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.PROFILING_KEY)
+        .index(15)
+        .name("Profile the analysis")
+        .description("Measure the time spent in each phase of the analysis and in each rule, log the slowest files and rules, and write a detailed report "
+          + "named " + OpenApiScannerSensor.PROFILING_REPORT + " in the scanner working directory. Profiling slows the analysis down.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.FILE_TIMEOUT_KEY)
+        .index(16)
+        .name("Time budget per contract")
+        .description("Maximum time in milliseconds spent on the analysis of a contract. A contract that takes longer only gets an analysis error. "
+          + "0 means no limit.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.LONG)
+        .defaultValue("0")
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.RULE_TIMEOUT_KEY)
+        .index(17)
+        .name("Time budget per rule")
+        .description("Maximum time in milliseconds spent by a rule on a contract. The issues of a rule that takes longer are ignored on that contract. "
+          + "0 means no limit. Setting a limit runs the rules one after the other, which is slower.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.LONG)
+        .defaultValue("0")
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.SKIM_PAYLOADS_KEY)
+        .index(18)
+        .name("Skim examples and extensions")
+        .description("Do not visit the values of examples, defaults and x- extensions node by node, only count their lines. "
+          + "Speeds up the analysis of contracts with large examples. Custom rules looking into these values should not be used with this option.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .build(),
+      PropertyDefinition.builder(OpenApiScannerSensor.REFERENCES_CACHE_SIZE_KEY)
+        .index(19)
+        .name("Size of the referenced documents cache")
+        .description("Maximum size in megabytes of the documents referenced by $ref from other files, kept in memory during the analysis so that each "
+          + "of them is only parsed once. The default, 0, disables the resolution of references to other files.")
+        .category(OPENAPI_CATEGORY)
+        .subCategory(GENERAL)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(OpenApiScannerSensor.DEFAULT_REFERENCES_CACHE_SIZE))
+        .build(),
       OpenApi.class,
       OpenApiProfileDefinition.class,
       OpenApiScannerSensor.class,
@@ -19,10 +19,15 @@
  */
 package org.sonar.plugins.openapi;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.CheckFactory;
@@ -33,9 +38,15 @@ import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.openapi.AnalysisCache;
+import org.sonar.openapi.AnalysisProfiler;
+import org.sonar.openapi.DocumentCache;
 import org.sonar.openapi.OpenApiAnalyzer;
 import org.sonar.openapi.OpenApiChecks;
+import org.sonar.openapi.OpenApiConfiguration;
 import org.sonar.openapi.checks.CheckList;
+import org.sonar.openapi.parser.OpenApiVersionDetector;
+import org.sonar.openapi.parser.OpenApiVersionDetector.Version;
 import org.sonar.plugins.openapi.api.OpenApiCustomRuleRepository;
 
 public class OpenApiScannerSensor implements Sensor {
@@ -43,6 +54,24 @@ public class OpenApiScannerSensor implements Sensor {
   public static final String DEFAULT_V2_PATH = "openapi/v2/**";
   public static final String V3_PATH_KEY = "sonar.openapi.path.v3";
   public static final String DEFAULT_V3_PATH = "openapi/v3/**";
+  public static final String THREADS_KEY = "sonar.openapi.threads";
+  public static final int DEFAULT_THREADS = 1;
+  public static final String CACHE_PATH_KEY = "sonar.openapi.cache.path";
+  public static final String CACHE_MAX_SIZE_KEY = "sonar.openapi.cache.maxSize";
+  public static final int DEFAULT_CACHE_MAX_SIZE = 512;
+  public static final String SKIP_UNCHANGED_KEY = "sonar.openapi.skipUnchanged";
+  static final String PULL_REQUEST_KEY = "sonar.pullrequest.key";
+  public static final String AUTODETECT_KEY = "sonar.openapi.autodetect";
+  public static final String MMAP_THRESHOLD_KEY = "sonar.openapi.file.mmapThreshold";
+  public static final long DEFAULT_MMAP_THRESHOLD = 4L * 1024 * 1024;
+  public static final String PROFILING_KEY = "sonar.openapi.profiling";
+  public static final String PROFILING_REPORT = "openapi-profiling.json";
+  private static final int PROFILING_SUMMARY_SIZE = 10;
+  public static final String FILE_TIMEOUT_KEY = "sonar.openapi.timeout.file";
+  public static final String RULE_TIMEOUT_KEY = "sonar.openapi.timeout.rule";
+  public static final String SKIM_PAYLOADS_KEY = "sonar.openapi.skimPayloads";
+  public static final String REFERENCES_CACHE_SIZE_KEY = "sonar.openapi.references.cacheSize";
+  public static final int DEFAULT_REFERENCES_CACHE_SIZE = 0;
   private static final Logger LOGGER = Loggers.get(OpenApiScannerSensor.class);
   private final OpenApiChecks checks;
   private FileLinesContextFactory fileLinesContextFactory;
@@ -71,30 +100,138 @@ public class OpenApiScannerSensor implements Sensor {
   @Override
   public void execute(SensorContext context) {
     FilePredicates p = context.fileSystem().predicates();
+    AnalysisCache cache = context.config().get(CACHE_PATH_KEY)
+      .map(path -> new AnalysisCache(context.fileSystem().baseDir().toPath().resolve(path)))
+      .orElse(null);
+    AnalysisProfiler profiler = context.config().getBoolean(PROFILING_KEY).orElse(false) ? new AnalysisProfiler() : null;
+    DocumentCache documents = documentCache(context);
+    boolean skipUnchanged = skipUnchanged(context, cache);
 
-    scanFiles(context, p, V2_PATH_KEY, DEFAULT_V2_PATH, true);
-    scanFiles(context, p, V3_PATH_KEY, DEFAULT_V3_PATH, false);
+    if (context.config().getBoolean(AUTODETECT_KEY).orElse(false)) {
+      scanDetectedFiles(context, p, cache, profiler, documents, skipUnchanged);
+    } else {
+      scanFiles(context, p, V2_PATH_KEY, DEFAULT_V2_PATH, true, cache, profiler, documents, skipUnchanged);
+      scanFiles(context, p, V3_PATH_KEY, DEFAULT_V3_PATH, false, cache, profiler, documents, skipUnchanged);
+    }
+    if (cache != null) {
+      cache.logStatistics();
+      cache.evict(context.config().getLong(CACHE_MAX_SIZE_KEY).orElse((long) DEFAULT_CACHE_MAX_SIZE) * 1024 * 1024);
+    }
+    if (documents != null) {
+      documents.logStatistics();
+    }
+    if (profiler != null) {
+      profiler.logSummary(PROFILING_SUMMARY_SIZE);
+      profiler.writeReport(context.fileSystem().workDir().toPath().resolve(PROFILING_REPORT));
+    }
   }
 
-  public void scanFiles(SensorContext context, FilePredicates p, String pathsProperty, String defaultPath, boolean isV2) {
-    String[] pathPatterns;
-    if (!context.config().hasKey(pathsProperty)) {
-      pathPatterns = new String[] { defaultPath };
-    } else {
-      pathPatterns = context.config().getStringArray(pathsProperty);
+  /**
+   * Unchanged files can only be skipped when their results don't matter, that is in pull request analyses, and when
+   * they can be replayed from the cache. Otherwise, their measures would be cleared and their issues closed.
+   */
+  private static boolean skipUnchanged(SensorContext context, @Nullable AnalysisCache cache) {
+    if (!context.config().getBoolean(SKIP_UNCHANGED_KEY).orElse(false)) {
+      return false;
     }
+    if (cache == null || !context.config().hasKey(PULL_REQUEST_KEY)) {
+      LOGGER.warn("{} only applies to pull request analyses with {} set: all the OpenAPI files are analyzed.", SKIP_UNCHANGED_KEY, CACHE_PATH_KEY);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * The referenced documents are kept in memory as long as the sensor runs: their size is limited in megabytes of
+   * source. A size of 0 disables the resolution of references to other files.
+   */
+  @CheckForNull
+  private static DocumentCache documentCache(SensorContext context) {
+    long megabytes = context.config().getLong(REFERENCES_CACHE_SIZE_KEY).orElse((long) DEFAULT_REFERENCES_CACHE_SIZE);
+    if (megabytes <= 0) {
+      return null;
+    }
+    OpenApiConfiguration configuration = new OpenApiConfiguration(context.fileSystem().encoding(), false);
+    return new DocumentCache(context.fileSystem().baseDir().toPath(), configuration, megabytes * 1024 * 1024);
+  }
+
+  public void scanFiles(SensorContext context, FilePredicates p, String pathsProperty, String defaultPath, boolean isV2) {
+    scanFiles(context, p, pathsProperty, defaultPath, isV2, null, null, null, false);
+  }
+
+  private void scanFiles(SensorContext context, FilePredicates p, String pathsProperty, String defaultPath, boolean isV2, @Nullable AnalysisCache cache,
+    @Nullable AnalysisProfiler profiler, @Nullable DocumentCache documents, boolean skipUnchanged) {
     Iterable<InputFile> it = context.fileSystem().inputFiles(
       p.and(p.hasType(InputFile.Type.MAIN),
         p.hasLanguage(OpenApi.KEY),
-        p.matchesPathPatterns(pathPatterns)));
+        p.matchesPathPatterns(pathPatterns(context, pathsProperty, defaultPath))));
     List<InputFile> list = new ArrayList<>();
     it.forEach(list::add);
-    List<InputFile> inputFiles = Collections.unmodifiableList(list);
+    scanFiles(context, Collections.unmodifiableList(list), isV2, cache, profiler, documents, skipUnchanged);
+  }
 
+  /**
+   * Routes each OpenAPI file to the parser of its version, as found in the first bytes of the file. Files without a
+   * recognizable version key fall back on the path properties. Grammars are only built for the versions that are found.
+   */
+  private void scanDetectedFiles(SensorContext context, FilePredicates p, @Nullable AnalysisCache cache, @Nullable AnalysisProfiler profiler,
+    @Nullable DocumentCache documents, boolean skipUnchanged) {
+    FilePredicate v2Paths = p.matchesPathPatterns(pathPatterns(context, V2_PATH_KEY, DEFAULT_V2_PATH));
+    FilePredicate v3Paths = p.matchesPathPatterns(pathPatterns(context, V3_PATH_KEY, DEFAULT_V3_PATH));
+    List<InputFile> v2Files = new ArrayList<>();
+    List<InputFile> v3Files = new ArrayList<>();
+    for (InputFile inputFile : context.fileSystem().inputFiles(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage(OpenApi.KEY)))) {
+      Optional<Version> version = detectVersion(inputFile);
+      if (version.isPresent()) {
+        (version.get() == Version.V2 ? v2Files : v3Files).add(inputFile);
+      } else if (v2Paths.apply(inputFile)) {
+        v2Files.add(inputFile);
+      } else if (v3Paths.apply(inputFile)) {
+        v3Files.add(inputFile);
+      } else {
+        LOGGER.warn("Unable to detect the OpenAPI version of {}, the file is not analyzed.", inputFile);
+      }
+    }
+    scanFiles(context, Collections.unmodifiableList(v2Files), true, cache, profiler, documents, skipUnchanged);
+    scanFiles(context, Collections.unmodifiableList(v3Files), false, cache, profiler, documents, skipUnchanged);
+  }
+
+  private void scanFiles(SensorContext context, List<InputFile> inputFiles, boolean isV2, @Nullable AnalysisCache cache, @Nullable AnalysisProfiler profiler,
+    @Nullable DocumentCache documents, boolean skipUnchanged) {
     if (!inputFiles.isEmpty()) {
-      OpenApiAnalyzer scanner = new OpenApiAnalyzer(context, checks, fileLinesContextFactory, noSonarFilter, inputFiles, isV2);
+      int threads = context.config().getInt(THREADS_KEY).orElse(DEFAULT_THREADS);
+      OpenApiAnalyzer scanner = new OpenApiAnalyzer(context, checks, fileLinesContextFactory, noSonarFilter, inputFiles, isV2, threads, cache);
+      scanner.setChangedFilesOnly(skipUnchanged);
+      scanner.setMappingThreshold(context.config().getLong(MMAP_THRESHOLD_KEY).orElse(DEFAULT_MMAP_THRESHOLD));
+      scanner.setProfiler(profiler);
+      scanner.setTimeBudgets(context.config().getLong(FILE_TIMEOUT_KEY).orElse(0L), context.config().getLong(RULE_TIMEOUT_KEY).orElse(0L));
+      scanner.setSkimPayloads(context.config().getBoolean(SKIM_PAYLOADS_KEY).orElse(false));
+      scanner.setDocumentCache(documents);
       LOGGER.info("OpenAPI Scanner called for the following files: {}.", inputFiles);
       scanner.scanFiles();
     }
   }
+
+  private static String[] pathPatterns(SensorContext context, String pathsProperty, String defaultPath) {
+    if (!context.config().hasKey(pathsProperty)) {
+      return new String[] { defaultPath };
+    } else {
+      return context.config().getStringArray(pathsProperty);
+    }
+  }
+
+  private static Optional<Version> detectVersion(InputFile inputFile) {
+    byte[] header = new byte[OpenApiVersionDetector.HEADER_SIZE];
+    int length = 0;
+    try (InputStream stream = inputFile.inputStream()) {
+      int read;
+      while (length < header.length && (read = stream.read(header, length, header.length - length)) > 0) {
+        length += read;
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Unable to read " + inputFile, e);
+      return Optional.empty();
+    }
+    return OpenApiVersionDetector.detect(new String(header, 0, length, inputFile.charset()));
+  }
 }
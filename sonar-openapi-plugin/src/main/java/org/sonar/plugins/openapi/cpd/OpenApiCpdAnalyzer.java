@@ -23,6 +23,12 @@ import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.TokenType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
@@ -35,34 +41,194 @@ import org.sonar.plugins.openapi.api.OpenApiVisitorContext;
 public class OpenApiCpdAnalyzer {
 
   private final SensorContext context;
+  private final ImagePool imagePool = new ImagePool(ImagePool.DEFAULT_CAPACITY);
 
   public OpenApiCpdAnalyzer(SensorContext context) {
     this.context = context;
   }
 
   public void pushCpdTokens(InputFile inputFile, OpenApiVisitorContext visitorContext) {
+    if (visitorContext.rootTree() != null) {
+      saveCpdTokens(inputFile, collectCpdTokens(visitorContext));
+    }
+  }
+
+  /**
+   * Extracts the tokens to feed to the CPD engine, without saving them. This part does not touch the sensor context
+   * and can run on any thread.
+   * @param visitorContext the parsed file
+   * @return the tokens to save, empty if the file could not be parsed
+   */
+  public CpdTokens collectCpdTokens(OpenApiVisitorContext visitorContext) {
     AstNode root = visitorContext.rootTree();
-    if (root != null) {
-      NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
-      for (Token token : root.getTokens()) {
-        if (!isIgnoredType(token.getType())) {
-          IssueLocation.TokenLocation location = new IssueLocation.TokenLocation(token);
-          if (location.startLine() < location.endLine() || location.startLineOffset() < location.endLineOffset()) {
-            // Ignore blank tokens
-            cpdTokens.addToken(location.startLine(), location.startLineOffset(), location.endLine(), location.endLineOffset(), getImage(token));
-          }
+    CpdTokens tokens = new CpdTokens(imagePool);
+    if (root == null) {
+      return tokens;
+    }
+    for (Token token : root.getTokens()) {
+      if (!isIgnoredType(token.getType())) {
+        IssueLocation.TokenLocation location = new IssueLocation.TokenLocation(token);
+        if (location.startLine() < location.endLine() || location.startLineOffset() < location.endLineOffset()) {
+          // Ignore blank tokens
+          tokens.add(location.startLine(), location.startLineOffset(), location.endLine(), location.endLineOffset(), getImage(token));
         }
       }
-      cpdTokens.save();
     }
+    tokens.trimToSize();
+    return tokens;
+  }
+
+  public void saveCpdTokens(InputFile inputFile, CpdTokens tokens) {
+    NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
+    for (int i = 0; i < tokens.size(); ++i) {
+      cpdTokens.addToken(tokens.startLine(i), tokens.startLineOffset(i), tokens.endLine(i), tokens.endLineOffset(i), tokens.image(i));
+    }
+    cpdTokens.save();
   }
 
-  private boolean isIgnoredType(TokenType type) {
+  private static boolean isIgnoredType(TokenType type) {
     return type.equals(GenericTokenType.EOF);
   }
 
-  private String getImage(Token token) {
+  private static String getImage(Token token) {
     return token.getValue();
   }
 
+  /**
+   * The short images shared between the files of an analysis, such as property names and enumerated values. The pool
+   * stops growing once it holds {@code capacity} images: the images that are not in the pool by then are not shared.
+   */
+  public static final class ImagePool {
+    static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_SHARED_IMAGE_LENGTH = 32;
+
+    private final ConcurrentMap<String, String> images = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public ImagePool(int capacity) {
+      this.capacity = capacity;
+    }
+
+    String share(String image) {
+      if (image.length() > MAX_SHARED_IMAGE_LENGTH) {
+        return image;
+      }
+      String shared = images.get(image);
+      if (shared == null) {
+        if (images.size() >= capacity) {
+          return image;
+        }
+        shared = images.putIfAbsent(image, image);
+      }
+      return shared == null ? image : shared;
+    }
+
+    int size() {
+      return images.size();
+    }
+  }
+
+  /**
+   * The tokens of a file, ready to be pushed to the CPD engine. They may be kept for a while, until the results of the
+   * file are saved, so they are stored in columns rather than as one object per token, and each distinct image is
+   * only stored once. Short images can also be shared between files, through an {@link ImagePool}.
+   */
+  public static final class CpdTokens {
+    private static final int[] NO_POSITIONS = new int[0];
+    private static final String[] NO_IMAGES = new String[0];
+
+    private int size;
+    private int[] startLines = NO_POSITIONS;
+    private int[] startLineOffsets = NO_POSITIONS;
+    private int[] endLines = NO_POSITIONS;
+    private int[] endLineOffsets = NO_POSITIONS;
+    private int[] imageIds = NO_POSITIONS;
+    private String[] images = NO_IMAGES;
+    private int imageCount;
+    private Map<String, Integer> imagePool = new HashMap<>();
+    @Nullable
+    private final ImagePool sharedImages;
+
+    public CpdTokens() {
+      this(null);
+    }
+
+    public CpdTokens(@Nullable ImagePool sharedImages) {
+      this.sharedImages = sharedImages;
+    }
+
+    public void add(int startLine, int startLineOffset, int endLine, int endLineOffset, String image) {
+      if (size == startLines.length) {
+        int capacity = Math.max(16, size * 2);
+        startLines = Arrays.copyOf(startLines, capacity);
+        startLineOffsets = Arrays.copyOf(startLineOffsets, capacity);
+        endLines = Arrays.copyOf(endLines, capacity);
+        endLineOffsets = Arrays.copyOf(endLineOffsets, capacity);
+        imageIds = Arrays.copyOf(imageIds, capacity);
+      }
+      startLines[size] = startLine;
+      startLineOffsets[size] = startLineOffset;
+      endLines[size] = endLine;
+      endLineOffsets[size] = endLineOffset;
+      imageIds[size] = imageId(image);
+      ++size;
+    }
+
+    private int imageId(String image) {
+      if (imagePool == null) {
+        imagePool = new HashMap<>();
+        for (int i = 0; i < imageCount; ++i) {
+          imagePool.put(images[i], i);
+        }
+      }
+      Integer id = imagePool.get(image);
+      if (id == null) {
+        if (imageCount == images.length) {
+          images = Arrays.copyOf(images, Math.max(16, imageCount * 2));
+        }
+        id = imageCount;
+        images[imageCount++] = sharedImages == null ? image : sharedImages.share(image);
+        imagePool.put(image, id);
+      }
+      return id;
+    }
+
+    /**
+     * Releases the spare capacity and the lookup table of images, once all the tokens are added.
+     */
+    public void trimToSize() {
+      startLines = Arrays.copyOf(startLines, size);
+      startLineOffsets = Arrays.copyOf(startLineOffsets, size);
+      endLines = Arrays.copyOf(endLines, size);
+      endLineOffsets = Arrays.copyOf(endLineOffsets, size);
+      imageIds = Arrays.copyOf(imageIds, size);
+      images = Arrays.copyOf(images, imageCount);
+      imagePool = null;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public int startLine(int index) {
+      return startLines[index];
+    }
+
+    public int startLineOffset(int index) {
+      return startLineOffsets[index];
+    }
+
+    public int endLine(int index) {
+      return endLines[index];
+    }
+
+    public int endLineOffset(int index) {
+      return endLineOffsets[index];
+    }
+
+    public String image(int index) {
+      return images[imageIds[index]];
+    }
+  }
+
 }
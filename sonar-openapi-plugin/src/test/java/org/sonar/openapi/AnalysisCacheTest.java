@@ -0,0 +1,130 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.measures.CoreMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalysisCacheTest {
+  private static final byte[] FINGERPRINT = {1, 2, 3};
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void replays_stored_analyses() throws Exception {
+    AnalysisCache cache = new AnalysisCache(temporaryFolder.getRoot().toPath());
+    cache.store(FINGERPRINT, content("a"), analysis(12));
+
+    assertThat(cache.load(FINGERPRINT, content("a")).measures()).containsEntry(CoreMetrics.NCLOC, 12);
+    assertThat(cache.load(FINGERPRINT, content("b"))).isNull();
+    assertThat(cache.load(new byte[] {4}, content("a"))).isNull();
+    assertThat(cache.hits()).isEqualTo(1);
+    assertThat(cache.lookups()).isEqualTo(3);
+  }
+
+  @Test
+  public void evicts_least_recently_used_entries() throws Exception {
+    AnalysisCache cache = new AnalysisCache(temporaryFolder.getRoot().toPath());
+    long hoursAgo = 3;
+    for (String content : new String[] {"a", "b", "c"}) {
+      List<Path> previous = entries();
+      cache.store(FINGERPRINT, content(content), analysis(1));
+      for (Path entry : entries()) {
+        if (!previous.contains(entry)) {
+          Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hoursAgo)));
+        }
+      }
+      --hoursAgo;
+    }
+    // "a" is the oldest entry, but was just used
+    assertThat(cache.load(FINGERPRINT, content("a"))).isNotNull();
+    long entrySize = Files.size(entries().get(0));
+
+    cache.evict(2 * entrySize);
+
+    assertThat(entries()).hasSize(2);
+    assertThat(cache.load(FINGERPRINT, content("a"))).isNotNull();
+    assertThat(cache.load(FINGERPRINT, content("b"))).isNull();
+    assertThat(cache.load(FINGERPRINT, content("c"))).isNotNull();
+
+    cache.evict(Long.MAX_VALUE);
+    assertThat(entries()).hasSize(2);
+  }
+
+  @Test
+  public void deletes_temporary_files() throws Exception {
+    AnalysisCache cache = new AnalysisCache(temporaryFolder.getRoot().toPath());
+    cache.store(FINGERPRINT, content("a"), analysis(1));
+    Path entry = entries().get(0);
+    Path stale = Files.createFile(entry.resolveSibling("stale.bin.tmp"));
+    Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+    Path recent = Files.createFile(entry.resolveSibling("recent.bin.tmp"));
+
+    cache.evict(Long.MAX_VALUE);
+
+    assertThat(stale).doesNotExist();
+    assertThat(recent).exists();
+
+    // the entry can't replace a non-empty directory
+    Files.delete(entry);
+    Files.createDirectories(entry.resolve("child"));
+    Files.delete(recent);
+    cache.store(FINGERPRINT, content("a"), analysis(1));
+
+    assertThat(files(entry.getParent())).containsOnly(entry);
+  }
+
+  private List<Path> entries() throws IOException {
+    try (Stream<Path> files = Files.walk(temporaryFolder.getRoot().toPath())) {
+      return files.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+  }
+
+  private static List<Path> files(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+  private static FileAnalysis analysis(int ncloc) {
+    FileAnalysis analysis = new FileAnalysis();
+    analysis.setParsed(true);
+    analysis.addMeasure(CoreMetrics.NCLOC, ncloc);
+    return analysis;
+  }
+
+  private static ByteBuffer content(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
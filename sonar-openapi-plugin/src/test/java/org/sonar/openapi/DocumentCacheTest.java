@@ -0,0 +1,56 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DocumentCacheTest {
+  private static final String DOCUMENT = "Pet:\n  type: object\n";
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void only_loads_files_of_the_project() throws Exception {
+    Path baseDir = temporaryFolder.newFolder("project").toPath();
+    Path outside = temporaryFolder.newFolder("outside").toPath();
+    Files.write(baseDir.resolve("schemas.yaml"), DOCUMENT.getBytes(StandardCharsets.UTF_8));
+    Files.write(outside.resolve("secret.yaml"), DOCUMENT.getBytes(StandardCharsets.UTF_8));
+    Files.createSymbolicLink(baseDir.resolve("link.yaml"), outside.resolve("secret.yaml"));
+    Files.createSymbolicLink(baseDir.resolve("linked"), outside);
+    DocumentCache cache = new DocumentCache(baseDir, new OpenApiConfiguration(StandardCharsets.UTF_8, false), 1024 * 1024);
+
+    assertThat(cache.load(baseDir, "../outside/secret.yaml")).isNull();
+    assertThat(cache.load(baseDir, "link.yaml")).isNull();
+    assertThat(cache.load(baseDir, "linked/secret.yaml")).isNull();
+    assertThat(cache.load(baseDir, "missing.yaml")).isNull();
+    assertThat(cache.load(baseDir, "http://example.com/schemas.yaml")).isNull();
+    assertThat(cache.loads()).isZero();
+
+    cache.load(baseDir, "schemas.yaml");
+    assertThat(cache.loads()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * SonarQube OpenAPI Plugin
+ * Copyright (C) 2018-2019 Societe Generale
+ * vincent.girard-reydet AT socgen DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.openapi;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.Rule;
+import org.sonar.openapi.checks.CheckList;
+import org.sonar.plugins.openapi.api.CompositeVisitor;
+import org.sonar.plugins.openapi.api.OpenApiCheck;
+import org.sonar.plugins.openapi.api.PreciseIssue;
+import org.sonar.plugins.openapi.api.ScopedCheck;
+import org.sonar.plugins.openapi.api.TestOpenApiVisitorRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpenApiChecksTest {
+
+  @Rule(key = "Stateful")
+  public static class StatefulCheck extends OpenApiCheck {
+  }
+
+  @Test
+  public void copies_list_their_checks_in_the_same_order() {
+    OpenApiChecks checks = allChecks();
+
+    OpenApiChecks copy = checks.copy();
+
+    List<OpenApiCheck> original = checks.all();
+    List<OpenApiCheck> copied = copy.all();
+    assertThat(copied).hasSameSizeAs(original);
+    for (int i = 0; i < original.size(); ++i) {
+      OpenApiCheck check = original.get(i);
+      assertThat(copy.ruleKeyFor(copied.get(i))).isEqualTo(checks.ruleKeyFor(check));
+      if (check instanceof ScopedCheck) {
+        assertThat(copied.get(i)).isSameAs(check);
+      } else {
+        assertThat(copied.get(i)).isNotSameAs(check).isInstanceOf(check.getClass());
+      }
+    }
+    assertThat(copied).filteredOn(StatefulCheck.class::isInstance).hasSize(1);
+  }
+
+  @Test
+  public void copies_give_the_same_issues_in_parallel() throws Exception {
+    OpenApiChecks checks = allChecks();
+    List<File> files = new ArrayList<>();
+    for (String name : new String[] {"file1.yaml", "cpd.yaml"}) {
+      files.add(new File("src/test/resources/sensor", name));
+    }
+    List<String> expected = new ArrayList<>();
+    for (File file : files) {
+      // each check on its own, with a fresh instance of the stateful ones
+      for (OpenApiCheck check : checks.all()) {
+        describe(expected, checks, check, check.scanFileForIssues(TestOpenApiVisitorRunner.createContext(file)));
+      }
+    }
+    assertThat(expected).isNotEmpty();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (int i = 0; i < 16; ++i) {
+        OpenApiChecks copy = checks.copy();
+        results.add(executor.submit(() -> {
+          List<String> actual = new ArrayList<>();
+          CompositeVisitor visitor = new CompositeVisitor(copy.all());
+          for (File file : files) {
+            for (Map.Entry<OpenApiCheck, List<PreciseIssue>> issues : visitor.scanFileForIssues(TestOpenApiVisitorRunner.createContext(file)).entrySet()) {
+              describe(actual, copy, issues.getKey(), issues.getValue());
+            }
+          }
+          return actual;
+        }));
+      }
+      for (Future<List<String>> result : results) {
+        assertThat(result.get()).containsExactlyElementsOf(expected);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static OpenApiChecks allChecks() {
+    ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+    for (Class<?> checkClass : CheckList.getChecks()) {
+      activeRules.create(RuleKey.of(CheckList.REPOSITORY_KEY, checkClass.getAnnotation(Rule.class).key())).activate();
+    }
+    activeRules.create(RuleKey.of("custom", "Stateful")).activate();
+    return OpenApiChecks.createOpenApiCheck(new CheckFactory(activeRules.build()))
+      .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks())
+      .addChecks("custom", Collections.singletonList(StatefulCheck.class));
+  }
+
+  private static void describe(List<String> descriptions, OpenApiChecks checks, OpenApiCheck check, List<PreciseIssue> issues) {
+    for (PreciseIssue issue : issues) {
+      descriptions.add(checks.ruleKeyFor(check) + " " + issue.primaryLocation().startLine() + ":" + issue.primaryLocation().startLineOffset()
+        + " " + issue.primaryLocation().message());
+    }
+  }
+}
@@ -22,10 +22,14 @@ package org.sonar.plugins.openapi;
 import com.google.common.collect.Iterables;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -44,6 +48,7 @@ import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.openapi.checks.CheckList;
 import org.sonar.openapi.checks.ParsingErrorCheck;
 import org.sonar.openapi.checks.PathMaskeradingCheck;
@@ -58,6 +63,8 @@ public class OpenApiScannerSensorTest {
   private final Path baseDir = Paths.get("src/test/resources/sensor").toAbsolutePath();
   @org.junit.Rule
   public LogTester logTester = new LogTester();
+  @org.junit.Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
   private SensorContextTester context;
   private ActiveRules activeRules;
 
@@ -130,6 +137,264 @@ public class OpenApiScannerSensorTest {
         );
   }
 
+  @Test
+  public void detects_contract_versions() {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .build();
+    context.settings().setProperty(OpenApiScannerSensor.AUTODETECT_KEY, true);
+    // the path properties would analyze the v3 contract as a v2 one
+    context.settings().setProperty("sonar.openapi.path.v2", "**");
+    context.settings().setProperty("sonar.openapi.path.v3", "none");
+    inputFile("file1.yaml");
+    sensor().execute(context);
+
+    assertThat(context.measure("moduleKey:file1.yaml", CoreMetrics.NCLOC).value()).isEqualTo(29);
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(context.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  public void profiling_report() throws Exception {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, ParsingErrorCheck.CHECK_KEY))
+      .activate()
+      .build();
+    List<String> expected = analyzeAll();
+
+    init();
+    Path workDir = temporaryFolder.newFolder().toPath();
+    context.fileSystem().setWorkDir(workDir);
+    context.settings().setProperty(OpenApiScannerSensor.PROFILING_KEY, true);
+    assertThat(analyzeAll()).containsExactlyElementsOf(expected);
+
+    String report = new String(Files.readAllBytes(workDir.resolve(OpenApiScannerSensor.PROFILING_REPORT)), StandardCharsets.UTF_8);
+    assertThat(report).contains("\"phases\"", "\"parse\"", "\"openapi:PathMaskerading\"", "\"moduleKey:file1.yaml\"");
+    assertThat(logTester.logs(LoggerLevel.INFO)).filteredOn(log -> log.startsWith("Slowest OpenAPI rules: ")).hasSize(1);
+  }
+
+  @Test
+  public void parallel_analysis_gives_same_results() {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, ParsingErrorCheck.CHECK_KEY))
+      .activate()
+      .build();
+
+    List<String> sequential = analyzeAll();
+    init();
+    context.settings().setProperty(OpenApiScannerSensor.THREADS_KEY, 4);
+    List<String> parallel = analyzeAll();
+
+    assertThat(parallel).isNotEmpty().containsExactlyElementsOf(sequential);
+  }
+
+  @Test
+  public void memory_mapped_files_give_same_results() {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, ParsingErrorCheck.CHECK_KEY))
+      .activate()
+      .build();
+
+    List<String> read = analyzeAll();
+    init();
+    context.settings().setProperty(OpenApiScannerSensor.MMAP_THRESHOLD_KEY, 0);
+    List<String> mapped = analyzeAll();
+
+    assertThat(mapped).isNotEmpty().containsExactlyElementsOf(read);
+  }
+
+  @Test
+  public void skimmed_payloads_give_same_results() {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, ParsingErrorCheck.CHECK_KEY))
+      .activate()
+      .build();
+
+    List<String> walked = analyzeAll();
+    init();
+    context.settings().setProperty(OpenApiScannerSensor.SKIM_PAYLOADS_KEY, true);
+    List<String> skimmed = analyzeAll();
+
+    assertThat(skimmed).isNotEmpty().containsExactlyElementsOf(walked);
+  }
+
+  @Test
+  public void references_to_other_files_are_resolved() {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "DefinedResponse"))
+      .activate()
+      .build();
+
+    context.settings().setProperty(OpenApiScannerSensor.REFERENCES_CACHE_SIZE_KEY, 64);
+    inputFile("external-ref.yaml");
+    sensor().execute(context);
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.INFO)).filteredOn(log -> log.startsWith("OpenAPI referenced documents: ")).hasSize(1);
+
+    init();
+    inputFile("external-ref.yaml");
+    sensor().execute(context);
+    assertThat(context.allIssues()).hasSize(1);
+  }
+
+  @Test
+  public void issues_found_in_other_files_are_reported_in_the_analyzed_file() {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "DefinedResponse"))
+      .activate()
+      .build();
+    context.settings().setProperty(OpenApiScannerSensor.REFERENCES_CACHE_SIZE_KEY, 64);
+
+    InputFile file = inputFile("external-ref-no-model.yaml");
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    Issue issue = context.allIssues().iterator().next();
+    assertThat(issue.primaryLocation().inputComponent()).isEqualTo(file);
+    assertThat(issue.primaryLocation().textRange().start().line()).isEqualTo(9);
+  }
+
+  @Test
+  public void cache_replays_previous_results() throws Exception {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, ParsingErrorCheck.CHECK_KEY))
+      .activate()
+      .build();
+    String cachePath = temporaryFolder.newFolder().getAbsolutePath();
+
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    List<String> firstRun = analyzeAll();
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("OpenAPI analysis cache: 0/3 files reused (0%)");
+
+    init();
+    logTester.clear();
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    List<String> secondRun = analyzeAll();
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("OpenAPI analysis cache: 3/3 files reused (100%)");
+    assertThat(secondRun).isNotEmpty().containsExactlyElementsOf(firstRun);
+
+    // changing the quality profile invalidates the entries
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .build();
+    init();
+    logTester.clear();
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    analyzeAll();
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("OpenAPI analysis cache: 0/3 files reused (0%)");
+
+    // so does changing the way the files are analyzed
+    init();
+    logTester.clear();
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    context.settings().setProperty(OpenApiScannerSensor.SKIM_PAYLOADS_KEY, true);
+    analyzeAll();
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("OpenAPI analysis cache: 0/3 files reused (0%)");
+  }
+
+  @Test
+  public void skip_unchanged_files() throws Exception {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, ParsingErrorCheck.CHECK_KEY))
+      .activate()
+      .build();
+    String cachePath = temporaryFolder.newFolder().getAbsolutePath();
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    context.settings().setProperty(OpenApiScannerSensor.PULL_REQUEST_KEY, "42");
+    context.settings().setProperty(OpenApiScannerSensor.SKIP_UNCHANGED_KEY, true);
+    inputFile("file1.yaml", InputFile.Status.SAME);
+    inputFile("parse-error.yaml", InputFile.Status.CHANGED);
+    sensor().execute(context);
+
+    assertThat(context.measure("moduleKey:file1.yaml", CoreMetrics.NCLOC)).isNull();
+    assertThat(context.allIssues()).extracting(i -> i.primaryLocation().inputComponent().key()).containsOnly("moduleKey:parse-error.yaml");
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("1 unchanged OpenAPI files were not analyzed");
+  }
+
+  @Test
+  public void unchanged_files_analyzed_outside_of_pull_requests() throws Exception {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .build();
+    String cachePath = temporaryFolder.newFolder().getAbsolutePath();
+    // a branch analysis
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    context.settings().setProperty(OpenApiScannerSensor.SKIP_UNCHANGED_KEY, true);
+    inputFile("file1.yaml", InputFile.Status.SAME);
+    sensor().execute(context);
+
+    assertThat(context.measure("moduleKey:file1.yaml", CoreMetrics.NCLOC).value()).isEqualTo(29);
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(1);
+
+    // a pull request analysis without cache
+    init();
+    logTester.clear();
+    context.settings().setProperty(OpenApiScannerSensor.PULL_REQUEST_KEY, "42");
+    context.settings().setProperty(OpenApiScannerSensor.SKIP_UNCHANGED_KEY, true);
+    inputFile("file1.yaml", InputFile.Status.SAME);
+    sensor().execute(context);
+
+    assertThat(context.measure("moduleKey:file1.yaml", CoreMetrics.NCLOC).value()).isEqualTo(29);
+    assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(1);
+  }
+
+  @Test
+  public void skipped_files_replayed_from_cache() throws Exception {
+    activeRules = (new ActiveRulesBuilder())
+      .create(RuleKey.of(CheckList.REPOSITORY_KEY, "PathMaskerading"))
+      .activate()
+      .build();
+    String cachePath = temporaryFolder.newFolder().getAbsolutePath();
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    inputFile("file1.yaml");
+    sensor().execute(context);
+
+    init();
+    context.settings().setProperty(OpenApiScannerSensor.CACHE_PATH_KEY, cachePath);
+    context.settings().setProperty(OpenApiScannerSensor.PULL_REQUEST_KEY, "42");
+    context.settings().setProperty(OpenApiScannerSensor.SKIP_UNCHANGED_KEY, true);
+    inputFile("file1.yaml", InputFile.Status.SAME);
+    inputFile("cpd.yaml", InputFile.Status.SAME);
+    sensor().execute(context);
+
+    assertThat(context.measure("moduleKey:file1.yaml", CoreMetrics.NCLOC).value()).isEqualTo(29);
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(context.measure("moduleKey:cpd.yaml", CoreMetrics.NCLOC)).isNull();
+  }
+
+  private List<String> analyzeAll() {
+    inputFile("file1.yaml");
+    inputFile("parse-error.yaml");
+    inputFile("cpd.yaml");
+    sensor().execute(context);
+
+    List<String> results = new ArrayList<>();
+    context.allIssues().forEach(i -> results.add(i.ruleKey() + " " + i.primaryLocation().inputComponent() + " " + i.primaryLocation().textRange() + " " + i.primaryLocation().message()));
+    context.allAnalysisErrors().forEach(e -> results.add(e.inputFile() + " " + e.location() + " " + e.message()));
+    for (String file : new String[] {"file1.yaml", "cpd.yaml"}) {
+      results.add(file + " ncloc=" + context.measure("moduleKey:" + file, CoreMetrics.NCLOC).value());
+      results.add(file + " complexity=" + context.measure("moduleKey:" + file, CoreMetrics.COMPLEXITY).value());
+      results.add(file + " cpd=" + context.cpdTokens("moduleKey:" + file).size());
+    }
+    return results;
+  }
+
   @Test
   public void cancelled_analysis() {
     InputFile inputFile = inputFile("file1.yaml");
@@ -148,8 +413,13 @@ public class OpenApiScannerSensorTest {
   }
 
   private InputFile inputFile(String name) {
+    return inputFile(name, InputFile.Status.ADDED);
+  }
+
+  private InputFile inputFile(String name, InputFile.Status status) {
     DefaultInputFile inputFile = TestInputFileBuilder.create("moduleKey", name)
       .setModuleBaseDir(baseDir)
+      .setStatus(status)
       .setCharset(StandardCharsets.UTF_8)
       .setType(InputFile.Type.MAIN)
       .setLanguage(OpenApi.KEY)
@@ -67,6 +67,55 @@ public class OpenApiCpdAnalyzerTest {
         "/pets:{}");
   }
 
+  @Test
+  public void stores_tokens_in_columns_with_shared_images() {
+    OpenApiCpdAnalyzer.CpdTokens tokens = new OpenApiCpdAnalyzer.CpdTokens();
+    for (int i = 0; i < 20; ++i) {
+      tokens.add(i + 1, 2, i + 1, 6, new String("type"));
+    }
+    tokens.trimToSize();
+    tokens.add(30, 0, 31, 4, "string");
+
+    assertThat(tokens.size()).isEqualTo(21);
+    assertThat(tokens.startLine(19)).isEqualTo(20);
+    assertThat(tokens.startLineOffset(19)).isEqualTo(2);
+    assertThat(tokens.endLine(20)).isEqualTo(31);
+    assertThat(tokens.endLineOffset(20)).isEqualTo(4);
+    assertThat(tokens.image(0)).isEqualTo("type").isSameAs(tokens.image(19));
+    assertThat(tokens.image(20)).isEqualTo("string");
+  }
+
+  @Test
+  public void shares_short_images_between_files() {
+    OpenApiCpdAnalyzer.ImagePool pool = new OpenApiCpdAnalyzer.ImagePool(2);
+    OpenApiCpdAnalyzer.CpdTokens file1 = new OpenApiCpdAnalyzer.CpdTokens(pool);
+    OpenApiCpdAnalyzer.CpdTokens file2 = new OpenApiCpdAnalyzer.CpdTokens(pool);
+    file1.add(1, 0, 1, 11, new String("description"));
+    file2.add(1, 0, 1, 11, new String("description"));
+    String longImage = "a description that is much too long to be shared";
+    file1.add(2, 0, 2, longImage.length(), new String(longImage));
+    file2.add(2, 0, 2, longImage.length(), new String(longImage));
+
+    assertThat(file1.image(0)).isSameAs(file2.image(0));
+    assertThat(file1.image(1)).isEqualTo(longImage).isNotSameAs(file2.image(1));
+    assertThat(pool.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void image_pool_is_bounded() {
+    OpenApiCpdAnalyzer.ImagePool pool = new OpenApiCpdAnalyzer.ImagePool(2);
+    OpenApiCpdAnalyzer.CpdTokens file1 = new OpenApiCpdAnalyzer.CpdTokens(pool);
+    OpenApiCpdAnalyzer.CpdTokens file2 = new OpenApiCpdAnalyzer.CpdTokens(pool);
+    for (String image : new String[] {"type", "string", "object"}) {
+      file1.add(1, 0, 1, image.length(), new String(image));
+      file2.add(1, 0, 1, image.length(), new String(image));
+    }
+
+    assertThat(pool.size()).isEqualTo(2);
+    assertThat(file1.image(1)).isSameAs(file2.image(1));
+    assertThat(file1.image(2)).isEqualTo("object").isNotSameAs(file2.image(2));
+  }
+
   private DefaultInputFile inputFile(String fileName) {
     File file = new File(BASE_DIR, fileName);
 